@@ -0,0 +1,218 @@
+package com.squareup.burst;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounds how many children run at once, and adjusts that bound while they run.
+ * <p>
+ * The bound starts at the number of processors the JVM may use, including the CPU quota of its
+ * cgroup, and climbs a step at a time while the measured throughput improves. When a step lowers
+ * throughput, it climbs the other way. When the heap is still nearly full after a garbage
+ * collection during the last window, the bound is halved, as overlapping more children would only
+ * thrash the collector.
+ */
+final class AdaptiveLimit {
+  private static final Logger logger = Logger.getLogger(AdaptiveLimit.class.getName());
+  /** The fraction of the heap in use after a collection above which the bound is halved. */
+  static final double HEAP_PRESSURE = 0.85;
+  /** The change in throughput below which a step is considered not to have helped. */
+  private static final double TOLERANCE = 0.05;
+
+  private final String name;
+  private final int max;
+  private final long startNanos = System.nanoTime();
+  private int limit;
+  private int lowest;
+  private int highest;
+  private int direction = 1;
+  private int running;
+  private int completed;
+  private int windowCompleted;
+  private long windowStartNanos = startNanos;
+  private double previousThroughput;
+  /** The number of garbage collections as of the last adjustment. */
+  private long collections;
+
+  /**
+   * @param max the largest bound, such as the number of threads children run on.
+   * @param start the initial bound.
+   */
+  AdaptiveLimit(String name, int max, int start) {
+    this(name, max, start, collectionCount());
+  }
+
+  /** @param collections the number of garbage collections so far. */
+  AdaptiveLimit(String name, int max, int start, long collections) {
+    this.name = name;
+    this.max = max;
+    this.limit = Math.max(1, Math.min(max, start));
+    this.lowest = limit;
+    this.highest = limit;
+    this.collections = collections;
+  }
+
+  /** Creates a limit which starts at the processors available to this JVM. */
+  static AdaptiveLimit forProcessors(String name, int max) {
+    return new AdaptiveLimit(name, max, cpuLimit());
+  }
+
+  synchronized int limit() {
+    return limit;
+  }
+
+  /** Waits until fewer children than the bound are running, then counts one more. */
+  synchronized void acquire() {
+    boolean interrupted = false;
+    while (running >= limit) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    running++;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Counts a finished child, and adjusts the bound once a window of children has finished. */
+  synchronized void release() {
+    running--;
+    completed++;
+    windowCompleted++;
+    // Measure over a few rounds at the current bound so that one slow child doesn't dominate.
+    if (windowCompleted >= 2 * limit + 2) {
+      long now = System.nanoTime();
+      double seconds = Math.max(1, now - windowStartNanos) / 1e9;
+      adjust(windowCompleted / seconds, heapAfterCollection(), collectionCount());
+      windowCompleted = 0;
+      windowStartNanos = now;
+    }
+    notifyAll();
+  }
+
+  /**
+   * Moves the bound a step given the throughput of the last window, in children per second, and
+   * the fraction of the heap in use after the last collection. That fraction only changes when the
+   * heap is collected, so it is only heeded if {@code collections}, the number of collections so
+   * far, has grown since the last adjustment.
+   */
+  synchronized void adjust(double throughput, double heap, long collections) {
+    int previous = limit;
+    boolean collected = collections != this.collections;
+    this.collections = collections;
+    if (collected && heap > HEAP_PRESSURE) {
+      limit = Math.max(1, limit / 2);
+      direction = -1;
+    } else {
+      if (throughput < previousThroughput * (1 - TOLERANCE)) {
+        direction = -direction;
+      }
+      if (limit + direction < 1 || limit + direction > max) {
+        // At an end of the range, so the only step is back.
+        direction = -direction;
+      }
+      limit = Math.max(1, Math.min(max, limit + direction));
+    }
+    previousThroughput = throughput;
+    lowest = Math.min(lowest, limit);
+    highest = Math.max(highest, limit);
+    if (limit != previous && logger.isLoggable(Level.FINE)) {
+      logger.fine(String.format("%s parallelism %d -> %d (%.1f/s, heap %.0f%%)", name, previous,
+          limit, throughput, heap * 100));
+    }
+  }
+
+  /** Logs the bound this run settled on, to help size the machine which runs the tests. */
+  synchronized void log(Level level) {
+    if (!logger.isLoggable(level)) {
+      return;
+    }
+    double seconds = Math.max(1, System.nanoTime() - startNanos) / 1e9;
+    logger.log(level, String.format(
+        "%s finished with adaptive parallelism %d (range %d-%d of %d), %.1f variations/s", name,
+        limit, lowest, highest, max, completed / seconds));
+  }
+
+  /** The largest fraction of a heap pool in use after its last collection, or 0 if unknown. */
+  static double heapAfterCollection() {
+    double fraction = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) {
+        continue;
+      }
+      MemoryUsage usage = pool.getCollectionUsage();
+      if (usage != null && usage.getMax() > 0) {
+        fraction = Math.max(fraction, (double) usage.getUsed() / usage.getMax());
+      }
+    }
+    return fraction;
+  }
+
+  /** The number of garbage collections so far, over every collector which counts them. */
+  static long collectionCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, collector.getCollectionCount());
+    }
+    return count;
+  }
+
+  /**
+   * Returns the processors this JVM may use, also honoring a cgroup CPU quota which older JVMs
+   * don't account for.
+   */
+  static int cpuLimit() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    // cgroup v2 holds "$quota $period", where the quota may be "max".
+    String[] v2 = readLine(new File("/sys/fs/cgroup/cpu.max")).split(" ");
+    if (v2.length == 2 && !v2[0].equals("max")) {
+      return quota(processors, v2[0], v2[1]);
+    }
+    String quota = readLine(new File("/sys/fs/cgroup/cpu/cpu.cfs_quota_us"));
+    String period = readLine(new File("/sys/fs/cgroup/cpu/cpu.cfs_period_us"));
+    if (!quota.isEmpty() && !period.isEmpty() && !quota.startsWith("-")) {
+      return quota(processors, quota, period);
+    }
+    return processors;
+  }
+
+  private static int quota(int processors, String quota, String period) {
+    try {
+      long q = Long.parseLong(quota);
+      long p = Long.parseLong(period);
+      if (q <= 0 || p <= 0) {
+        return processors;
+      }
+      return (int) Math.max(1, Math.min(processors, (q + p - 1) / p));
+    } catch (NumberFormatException e) {
+      return processors;
+    }
+  }
+
+  private static String readLine(File file) {
+    if (!file.canRead()) {
+      return "";
+    }
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line = reader.readLine();
+      if (line == null) {
+        return "";
+      }
+      return line.trim();
+    } catch (IOException e) {
+      return "";
+    }
+  }
+}
@@ -1,28 +1,201 @@
 package com.squareup.burst;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.junit.Test;
+import org.junit.runner.Description;
 import org.junit.runner.Runner;
 import org.junit.runner.manipulation.Filter;
 import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.Suite;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+import org.junit.runners.model.Statement;
 import org.junit.runners.model.TestClass;
 
 import static com.squareup.burst.Util.checkNotNull;
+import static com.squareup.burst.Util.saturatedAdd;
+import static com.squareup.burst.Util.saturatedMultiply;
 import static java.util.Collections.unmodifiableList;
 
 /**
- * A suite associated with a particular test class. Its children are {@link BurstRunner}s, each
- * representing a particular variation of that class.
+ * A suite associated with a particular test class. Its children are {@link VariationRunner}s, each
+ * representing a particular variation of that class, which builds its {@link BurstRunner} only to
+ * run.
  */
 public final class BurstJUnit4 extends Suite {
+  private static final Logger logger = Logger.getLogger(BurstJUnit4.class.getName());
+
+  /** Runs each child on the calling thread, like ParentRunner's default scheduler. */
+  private static final RunnerScheduler SEQUENTIAL = new RunnerScheduler() {
+    @Override public void schedule(Runnable childStatement) {
+      childStatement.run();
+    }
+
+    @Override public void finished() {
+    }
+  };
+
+  /**
+   * The scanned annotations of each test class, shared by the suite and every variation of it.
+   * A TestClass is immutable once built, so it can be shared by every runner of the class.
+   */
+  private static final ClassValue<TestClass> testClasses = new ClassValue<TestClass>() {
+    @Override protected TestClass computeValue(Class<?> type) {
+      return new TestClass(type);
+    }
+  };
+
+  private final BurstOptions options;
+  private final RunnerScheduler scheduler;
+
   public BurstJUnit4(Class<?> cls) throws InitializationError {
-    super(cls, explode(cls));
+    this(cls, BurstOptions.forClass(checkNotNull(cls, "cls")));
+  }
+
+  private BurstJUnit4(Class<?> cls, BurstOptions options) throws InitializationError {
+    super(cls, explode(cls, options));
+    this.options = options;
+    if (options.sharedPool && !options.virtualThreads) {
+      scheduler = SharedPool.get().newScheduler(cls.getSimpleName(), reportLevel(options));
+      setScheduler(scheduler);
+    } else if (options.parallelism > 1) {
+      scheduler = new ParallelScheduler(options.parallelism, cls.getSimpleName(),
+          options.virtualThreads, options.adaptive, reportLevel(options));
+      setScheduler(scheduler);
+    } else {
+      scheduler = SEQUENTIAL;
+    }
+  }
+
+  /** The level at which summaries of a class are logged. */
+  private static Level reportLevel(BurstOptions options) {
+    if (options.report) {
+      return Level.INFO;
+    }
+    return Level.FINE;
+  }
+
+  static TestClass testClass(Class<?> cls) {
+    return testClasses.get(cls);
+  }
+
+  // Suite has no constructor which takes a TestClass, so this deprecated hook is the only way in.
+  @SuppressWarnings("deprecation")
+  @Override protected TestClass createTestClass(Class<?> testClass) {
+    return testClass(testClass);
+  }
+
+  @Override protected String getName() {
+    if (options.sampleMax == 0) {
+      return super.getName();
+    }
+    // Include the seed so that a failing sample can be reproduced.
+    return super.getName() + " [sample=" + options.sampleMax + ", seed=" + options.seed + ']';
+  }
+
+  @Override public Description getDescription() {
+    if (!options.hierarchical) {
+      return super.getDescription();
+    }
+    return tree().root();
+  }
+
+  /** Describes the current children as a tree with a level per constructor dimension. */
+  private DimensionTree tree() {
+    Description root;
+    Class<?> cls = getTestClass().getJavaClass();
+    if (cls.getName().equals(getName())) {
+      root = Description.createSuiteDescription(cls, getRunnerAnnotations());
+    } else {
+      root = Description.createSuiteDescription(getName(), getRunnerAnnotations());
+    }
+    return new DimensionTree(root, ParentRunnerSpy.getFilteredChildren(this));
+  }
+
+  @Override public void run(RunNotifier notifier) {
+    if (!options.hierarchical) {
+      super.run(notifier);
+      return;
+    }
+    DimensionTree tree = tree();
+    RunListener tally = tree.tally();
+    notifier.addListener(tally);
+    try {
+      super.run(notifier);
+    } finally {
+      notifier.removeListener(tally);
+      tree.log(reportLevel(options));
+    }
+  }
+
+  @Override protected Statement childrenInvoker(final RunNotifier notifier) {
+    // A parallel scheduler defers variations until their resources have room, so it is given
+    // them as tasks which say what those are.
+    if (!options.methodMajor && !options.parallelMethods
+        && !(scheduler instanceof ParallelScheduler)) {
+      return super.childrenInvoker(notifier);
+    }
+    return new Statement() {
+      @Override public void evaluate() {
+        if (options.methodMajor) {
+          runMethodMajor(notifier);
+        } else {
+          for (Runner child : ParentRunnerSpy.getFilteredChildren(BurstJUnit4.this)) {
+            schedule((VariationRunner) child, null, notifier);
+          }
+          scheduler.finished();
+        }
+      }
+    };
+  }
+
+  /**
+   * Runs each test method over every variation, in the order of the method's first variation. The
+   * next method starts once every variation of the previous one has finished.
+   */
+  private void runMethodMajor(RunNotifier notifier) {
+    List<Runner> children = ParentRunnerSpy.getFilteredChildren(this);
+    Set<Method> methods = new LinkedHashSet<>();
+    for (Runner child : children) {
+      for (FrameworkMethod method : ((VariationRunner) child).tests(null)) {
+        methods.add(method.getMethod());
+      }
+    }
+    for (Method method : methods) {
+      for (Runner child : children) {
+        schedule((VariationRunner) child, method, notifier);
+      }
+      scheduler.finished();
+    }
+  }
+
+  /**
+   * Schedules the tests of {@code method}, or all tests if null, of {@code runner}. They are
+   * scheduled one by one if tests of the same variation may run concurrently, and together
+   * otherwise.
+   */
+  private void schedule(VariationRunner runner, Method method, RunNotifier notifier) {
+    if (!options.parallelMethods) {
+      scheduler.schedule(runner.task(method, notifier));
+      return;
+    }
+    runner.scheduleTests(method, notifier, scheduler);
   }
 
   /*
@@ -31,53 +204,321 @@ public final class BurstJUnit4 extends Suite {
    * all filtered out.
    * <p>
    * This would be problematic for us since we generate non-standard test descriptions which include
-   * parameter information. This implementation lets each {@link BurstRunner} child filter itself
-   * via {@link BurstRunner#filter(Filter)}.
+   * parameter information. This implementation lets each {@link VariationRunner} child filter
+   * itself via {@link VariationRunner#filter(Filter)}.
    */
   @Override public void filter(Filter filter) throws NoTestsRemainException {
-    List<Runner> filteredChildren = ParentRunnerSpy.getFilteredChildren(this);
-    // Iterate over a clone so that we can safely mutate the original.
-    for (Runner child : new ArrayList<>(filteredChildren)) {
+    List<Runner> children = ParentRunnerSpy.getFilteredChildren(this);
+    List<Runner> remaining = new ArrayList<>(children.size());
+    // Whether each test method should run, shared by its variations: plain descriptions don't
+    // depend on arguments, so the filter needs to see each method only once.
+    Map<Method, Boolean> verdicts = new HashMap<>();
+    for (Runner child : children) {
       try {
-        filter.apply(child);
+        ((VariationRunner) child).filter(filter, verdicts);
+        remaining.add(child);
       } catch (NoTestsRemainException e) {
-        filteredChildren.remove(child);
+        // Drop the child.
       }
     }
-    if (filteredChildren.isEmpty()) {
+    if (remaining.isEmpty()) {
       throw new NoTestsRemainException();
     }
+    ParentRunnerSpy.setFilteredChildren(this, remaining);
   }
 
-  static List<Runner> explode(Class<?> cls) throws InitializationError {
+  static List<Runner> explode(Class<?> cls, BurstOptions options) throws InitializationError {
     checkNotNull(cls, "cls");
 
-    TestClass testClass = new TestClass(cls);
+    TestClass testClass = testClass(cls);
     List<FrameworkMethod> testMethods = testClass.getAnnotatedMethods(Test.class);
+    TestConstructor constructor = BurstableConstructor.findSingle(cls);
+    // Narrow each space to the selected values first, so deselected variations are never created.
+    VariationSpace constructorVariations = options.selection.apply(
+        Burst.variations(constructor), constructor.getArgumentAnnotations());
+    VariationSpace[] methodVariations = new VariationSpace[testMethods.size()];
+    for (int m = 0; m < methodVariations.length; m++) {
+      Method method = testMethods.get(m).getMethod();
+      methodVariations[m] = options.selection.apply(
+          Burst.variations(method), Metadata.parameterAnnotations(method));
+    }
+
+    // Nothing but the indices of valid variations is allocated per variation until the plan is
+    // known to be within budget, and those are only enumerated up to the budget when they are what
+    // runs.
+    boolean[] truncated = new boolean[methodVariations.length];
+    long[][] indices = select(constructor, constructorVariations, testMethods, methodVariations,
+        Constraints.forClass(cls), options, truncated);
+    plan(cls, testMethods, constructorVariations, methodVariations, indices, truncated, options);
 
-    List<FrameworkMethod> burstMethods = new ArrayList<>(testMethods.size());
-    for (FrameworkMethod testMethod : testMethods) {
-      Method method = testMethod.getMethod();
-      for (Enum<?>[] methodArgs : Burst.explodeArguments(method)) {
-        burstMethods.add(new BurstMethod(method, methodArgs));
+    for (long[] methodIndices : indices) {
+      if (methodIndices != null) {
+        return explodeSelected(testClass, constructor, constructorVariations, testMethods,
+            methodVariations, indices, options);
       }
     }
 
-    TestConstructor constructor = BurstableConstructor.findSingle(cls);
-    Enum<?>[][] constructorArgsList = Burst.explodeArguments(constructor);
-    List<Runner> burstRunners = new ArrayList<>(constructorArgsList.length);
-    for (Enum<?>[] constructorArgs : constructorArgsList) {
-      burstRunners.add(new BurstRunner(cls, constructor, constructorArgs, burstMethods));
+    List<FrameworkMethod> burstMethods = new ArrayList<>();
+    for (int m = 0; m < methodVariations.length; m++) {
+      Method method = testMethods.get(m).getMethod();
+      MethodHandle invoker = BurstMethod.invoker(method);
+      ArgumentNames names = ArgumentNames.of(method);
+      for (long i = 0; i < methodVariations[m].size(); i++) {
+        burstMethods.add(
+            new BurstMethod(method, invoker, names, get(methodVariations[m], i, options)));
+      }
+    }
+
+    List<Runner> burstRunners = new ArrayList<>((int) constructorVariations.size());
+    for (long i = 0; i < constructorVariations.size(); i++) {
+      burstRunners.add(new VariationRunner(testClass, constructor, constructorVariations,
+          index(constructorVariations, i, options), burstMethods, options.hierarchical));
     }
+    validate(burstRunners);
 
     return unmodifiableList(burstRunners);
   }
 
-  static String nameWithArguments(String name, Enum<?>[] arguments,
-                                  Annotation[][] argumentAnnotations) {
-    if (arguments.length == 0) {
-      return name;
+  /**
+   * Validates the test class by creating the runner of its first variation. The runners of the
+   * others are only created to run them.
+   */
+  private static void validate(List<Runner> variations) throws InitializationError {
+    if (!variations.isEmpty()) {
+      ((VariationRunner) variations.get(0)).create();
+    }
+  }
+
+  /**
+   * Returns the valid, covered or sampled indices of each test method's variations. Every method
+   * selects from its constructor and parameter dimensions together, as indices into
+   * {@code constructorVariations.product(methodVariations[m])}. A method whose element is null runs
+   * every variation.
+   *
+   * @param truncated receives whether each method's valid variations were only enumerated until
+   * they exceeded the budget, so that its indices are only the first of them.
+   */
+  private static long[][] select(TestConstructor constructor,
+      VariationSpace constructorVariations, List<FrameworkMethod> testMethods,
+      VariationSpace[] methodVariations, Constraints constraints, BurstOptions options,
+      boolean[] truncated) {
+    Annotation[][] constructorAnnotations = constructor.getArgumentAnnotations();
+    int methodCount = methodVariations.length;
+    VariationSpace[] variations = new VariationSpace[methodCount];
+    long[][] indices = new long[methodCount][];
+    long[] counts = new long[methodCount];
+    long total = 0;
+    Constraints.Validator[] validators = new Constraints.Validator[methodCount];
+    for (int m = 0; m < methodCount; m++) {
+      variations[m] = constructorVariations.product(methodVariations[m]);
+      validators[m] = constraints.bind(variations[m], concat(constructorAnnotations,
+          Metadata.parameterAnnotations(testMethods.get(m).getMethod())));
+      if (options.coveringStrength > 0) {
+        if (validators[m] != null) {
+          // Valid variations replace the rows that break a constraint, so no combination is lost.
+          indices[m] = variations[m].covering(options.coveringStrength, validators[m]);
+        } else {
+          indices[m] = variations[m].covering(options.coveringStrength);
+        }
+      } else if (validators[m] != null && options.sampleMax == 0) {
+        // The valid variations are what runs, so there's no need to find more than the budget.
+        long max = Math.max(0, options.maxVariations - total);
+        indices[m] = validators[m].filter(max);
+        truncated[m] = indices[m].length > max;
+      }
+      if (indices[m] != null) {
+        counts[m] = indices[m].length;
+      } else {
+        // Samples draw from the whole space and reject invalid variations.
+        counts[m] = variations[m].size();
+      }
+      total = saturatedAdd(total, counts[m]);
+    }
+
+    if (options.sampleMax > 0) {
+      int[] budgets = allocate(counts, options.sampleMax);
+      Random seeds = new Random(options.seed);
+      for (int m = 0; m < methodCount; m++) {
+        long seed = seeds.nextLong();
+        if (indices[m] != null) {
+          indices[m] = variations[m].sample(indices[m], budgets[m], seed);
+        } else if (validators[m] != null) {
+          indices[m] = variations[m].sample(validators[m], budgets[m], seed);
+        } else {
+          indices[m] = variations[m].sample(budgets[m], seed);
+        }
+      }
+    }
+    return indices;
+  }
+
+  /**
+   * Logs the dimensions and projected test count of {@code cls}, and fails if that count exceeds
+   * the budget. Counts are exact up to {@link Long#MAX_VALUE}, beyond which they saturate.
+   *
+   * @param indices the selected indices of each method, or null where every variation runs.
+   * @param truncated whether each method has more valid variations than its indices.
+   */
+  private static void plan(Class<?> cls, List<FrameworkMethod> testMethods,
+      VariationSpace constructorVariations, VariationSpace[] methodVariations, long[][] indices,
+      boolean[] truncated, BurstOptions options) {
+    long total = 0;
+    boolean atLeast = false;
+    StringBuilder report = new StringBuilder();
+    report.append("\n  constructor: ").append(constructorVariations);
+    for (int m = 0; m < methodVariations.length; m++) {
+      long tests;
+      if (indices[m] != null) {
+        tests = indices[m].length;
+      } else {
+        tests = saturatedMultiply(constructorVariations.size(), methodVariations[m].size());
+      }
+      total = saturatedAdd(total, tests);
+      report.append("\n  ")
+          .append(testMethods.get(m).getName())
+          .append(": ")
+          .append(methodVariations[m])
+          .append(", ");
+      if (truncated[m]) {
+        report.append("at least ");
+        atLeast = true;
+      }
+      report.append(tests).append(" tests");
+    }
+
+    if (total > options.maxVariations) {
+      String count = String.valueOf(total);
+      if (atLeast) {
+        count = "at least " + count;
+      }
+      throw new IllegalStateException(cls.getName()
+          + " would run "
+          + count
+          + " tests, more than the maximum of "
+          + options.maxVariations
+          + ". Reduce its variations or raise the "
+          + BurstOptions.MAX_VARIATIONS_PROPERTY
+          + " system property."
+          + report);
+    }
+
+    Level level = reportLevel(options);
+    if (logger.isLoggable(level)) {
+      logger.log(level, cls.getName() + " will run " + total + " tests." + report);
+    }
+  }
+
+  /** Returns the variation at {@code position} of the order that {@code options} asks for. */
+  private static Enum<?>[] get(VariationSpace variations, long position, BurstOptions options) {
+    return variations.get(index(variations, position, options));
+  }
+
+  /** Returns the index of the variation at {@code position} of the order {@code options} wants. */
+  private static long index(VariationSpace variations, long position, BurstOptions options) {
+    if (options.grayCode) {
+      return variations.grayIndex(position);
+    }
+    return position;
+  }
+
+  /**
+   * Groups each method's selected variations by their constructor arguments into runners. In Gray
+   * code order the runners are ordered by the Gray code rank of their constructor arguments.
+   */
+  private static List<Runner> explodeSelected(TestClass testClass, TestConstructor constructor,
+      VariationSpace constructorVariations, List<FrameworkMethod> testMethods,
+      VariationSpace[] methodVariations, long[][] indices, BurstOptions options)
+      throws InitializationError {
+    Map<Long, List<FrameworkMethod>> methodsByConstructorPosition = new TreeMap<>();
+    for (int m = 0; m < methodVariations.length; m++) {
+      Method method = testMethods.get(m).getMethod();
+      MethodHandle invoker = BurstMethod.invoker(method);
+      ArgumentNames names = ArgumentNames.of(method);
+      long methodSize = methodVariations[m].size();
+      long count = methodSize * constructorVariations.size();
+      if (indices[m] != null) {
+        count = indices[m].length;
+      }
+      for (long i = 0; i < count; i++) {
+        long index = i;
+        if (indices[m] != null) {
+          index = indices[m][(int) i];
+        }
+        long constructorPosition = index / methodSize;
+        if (options.grayCode) {
+          constructorPosition = constructorVariations.grayRank(constructorPosition);
+        }
+        List<FrameworkMethod> methods = methodsByConstructorPosition.get(constructorPosition);
+        if (methods == null) {
+          methods = new ArrayList<>();
+          methodsByConstructorPosition.put(constructorPosition, methods);
+        }
+        methods.add(new BurstMethod(method, invoker, names,
+            methodVariations[m].get(index % methodSize)));
+      }
+    }
+
+    List<Runner> burstRunners = new ArrayList<>(methodsByConstructorPosition.size());
+    for (Map.Entry<Long, List<FrameworkMethod>> entry : methodsByConstructorPosition.entrySet()) {
+      burstRunners.add(new VariationRunner(testClass, constructor, constructorVariations,
+          index(constructorVariations, entry.getKey(), options), entry.getValue(),
+          options.hierarchical));
+    }
+    validate(burstRunners);
+
+    return unmodifiableList(burstRunners);
+  }
+
+  private static Annotation[][] concat(Annotation[][] first, Annotation[][] second) {
+    Annotation[][] result = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+
+  /**
+   * Shares a budget of {@code max} variations between methods with {@code counts} variations each.
+   * Every method gets at least one variation if the budget allows it, and the rest is shared in
+   * proportion to the remaining counts.
+   */
+  static int[] allocate(long[] counts, int max) {
+    long total = 0;
+    for (long count : counts) {
+      total = saturatedAdd(total, count);
+    }
+    int[] budgets = new int[counts.length];
+    if (total <= max) {
+      for (int m = 0; m < counts.length; m++) {
+        budgets[m] = (int) counts[m];
+      }
+      return budgets;
+    }
+
+    int remaining = max;
+    for (int m = 0; m < counts.length && remaining > 0; m++) {
+      if (counts[m] > 0) {
+        budgets[m] = 1;
+        remaining--;
+      }
+    }
+
+    // Scale in floating point: counts and their total may not fit in a long.
+    double rest = 0;
+    for (int m = 0; m < counts.length; m++) {
+      rest += counts[m] - budgets[m];
+    }
+    int shared = remaining;
+    for (int m = 0; m < counts.length; m++) {
+      int share = Math.min(remaining, (int) (shared * (double) (counts[m] - budgets[m]) / rest));
+      budgets[m] += share;
+      remaining -= share;
+    }
+    // Hand out what rounding down left over, in method order.
+    for (int m = 0; m < counts.length && remaining > 0; m++) {
+      if (budgets[m] < counts[m]) {
+        budgets[m]++;
+        remaining--;
+      }
     }
-    return name + '[' + Burst.friendlyName(arguments, argumentAnnotations) + ']';
+    return budgets;
   }
 }
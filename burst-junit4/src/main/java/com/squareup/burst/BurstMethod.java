@@ -1,33 +1,69 @@
 package com.squareup.burst;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import org.junit.internal.runners.model.ReflectiveCallable;
+import java.lang.reflect.Modifier;
 import org.junit.runners.model.FrameworkMethod;
 
-import static com.squareup.burst.BurstJUnit4.nameWithArguments;
 import static com.squareup.burst.Util.checkNotNull;
 
 final class BurstMethod extends FrameworkMethod {
+  /** The type of every {@link #invoker}: the target and the arguments, returning the result. */
+  private static final MethodType INVOKER_TYPE =
+      MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  private final MethodHandle invoker;
   private final Enum<?>[] methodArgs;
+  private final String name;
 
-  BurstMethod(Method method, Enum<?>[] methodArgs) {
+  /**
+   * @param invoker the {@link #invoker(Method)} of {@code method}, shared by all of its variations.
+   * @param names the names of {@code method}'s arguments, shared by all of its variations.
+   */
+  BurstMethod(Method method, MethodHandle invoker, ArgumentNames names, Enum<?>[] methodArgs) {
     super(checkNotNull(method, "method"));
+    this.invoker = checkNotNull(invoker, "invoker");
     this.methodArgs = checkNotNull(methodArgs, "methodArgs");
+    this.name = names.name(method.getName(), methodArgs);
   }
 
-  @Override public Object invokeExplosively(final Object target, Object... params)
-      throws Throwable {
-    checkNotNull(target, "target");
-
-    ReflectiveCallable callable = new ReflectiveCallable() {
-      @Override protected Object runReflectiveCall() throws Throwable {
-        return getMethod().invoke(target, methodArgs);
+  /**
+   * Returns a handle which calls {@code method} on a target with an array of arguments. Unlike
+   * {@link Method#invoke} it checks access once rather than on every call, and it throws what the
+   * method throws rather than wrapping it.
+   */
+  static MethodHandle invoker(Method method) {
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.publicLookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      // A public method of a class which isn't, such as one nested in a private class.
+      method.setAccessible(true);
+      try {
+        handle = MethodHandles.lookup().unreflect(method);
+      } catch (IllegalAccessException e2) {
+        throw new AssertionError(e2);
       }
-    };
-    return callable.run();
+    }
+    if (Modifier.isStatic(method.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return handle.asSpreader(Object[].class, method.getParameterTypes().length)
+        .asType(INVOKER_TYPE);
+  }
+
+  Enum<?>[] arguments() {
+    return methodArgs;
+  }
+
+  @Override public Object invokeExplosively(Object target, Object... params) throws Throwable {
+    checkNotNull(target, "target");
+    return (Object) invoker.invokeExact(target, (Object[]) methodArgs);
   }
 
   @Override public String getName() {
-    return nameWithArguments(super.getName(), methodArgs, getMethod().getParameterAnnotations());
+    return name;
   }
 }
@@ -0,0 +1,179 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Covering;
+import com.squareup.burst.annotation.GrayCode;
+import com.squareup.burst.annotation.Hierarchical;
+import com.squareup.burst.annotation.MethodMajor;
+import com.squareup.burst.annotation.Parallel;
+import com.squareup.burst.annotation.Sample;
+import java.util.Random;
+
+/**
+ * How the variations of a test class are exploded. Annotations on the class take precedence over
+ * the corresponding system properties, which apply to every class.
+ */
+final class BurstOptions {
+  /** The strength of a t-wise covering to run. */
+  static final String COVERING_PROPERTY = "burst.covering";
+  /** The maximum number of variations to sample per class. */
+  static final String SAMPLE_PROPERTY = "burst.sample";
+  /** The seed of sampled variations, to reproduce an earlier run. */
+  static final String SEED_PROPERTY = "burst.seed";
+  /** The maximum number of tests a class may explode into. */
+  static final String MAX_VARIATIONS_PROPERTY = "burst.maxVariations";
+  /** Whether to log the planned variations of every class at INFO rather than FINE. */
+  static final String REPORT_PROPERTY = "burst.report";
+  /** Whether to run variations in Gray code order. */
+  static final String GRAY_CODE_PROPERTY = "burst.grayCode";
+  /** Whether to run each test method over every variation before the next test method. */
+  static final String METHOD_MAJOR_PROPERTY = "burst.methodMajor";
+  /** The maximum number of variations to run at once, or 0 for one per processor. */
+  static final String PARALLELISM_PROPERTY = "burst.parallelism";
+  /** Whether tests of the same variation may run at once. */
+  static final String PARALLEL_METHODS_PROPERTY = "burst.parallelMethods";
+  /** Whether to run each test on its own virtual thread. */
+  static final String VIRTUAL_THREADS_PROPERTY = "burst.virtualThreads";
+  /** Whether to run on the work-stealing pool shared by every class in the JVM. */
+  static final String SHARED_POOL_PROPERTY = "burst.sharedPool";
+  /** Whether to adjust how many variations run at once while they run. */
+  static final String ADAPTIVE_PROPERTY = "burst.adaptive";
+  /** The variations to run, such as {@code Soda=PEPSI,Snack=*}. See {@link Selection}. */
+  static final String SELECT_PROPERTY = "burst.select";
+  /** Whether to nest the descriptions of variations by the values of each dimension. */
+  static final String HIERARCHICAL_PROPERTY = "burst.hierarchical";
+  /**
+   * How many times the processors an adaptive limit may climb to when the parallelism is
+   * {@link Parallel#PROCESSORS}, as it starts at the processors and tests which wait run best with
+   * more.
+   */
+  static final int ADAPTIVE_HEADROOM = 4;
+
+  /** The strength of the t-wise covering to run, or 0 to run every variation. */
+  final int coveringStrength;
+  /** The maximum number of variations to run, or 0 for no maximum. */
+  final int sampleMax;
+  /** The seed of the random sample. Only meaningful if {@link #sampleMax} is set. */
+  final long seed;
+  /** The maximum number of tests the class may explode into. */
+  final int maxVariations;
+  /** Whether the planned variations are logged at INFO. */
+  final boolean report;
+  /** Whether consecutive variations differ in one value rather than run in nested loop order. */
+  final boolean grayCode;
+  /** Whether each test method runs over every variation before the next test method. */
+  final boolean methodMajor;
+  /** The maximum number of constructor variations to run at once. */
+  final int parallelism;
+  /** Whether tests rather than whole variations are the units run at once. */
+  final boolean parallelMethods;
+  /** Whether each test runs on its own virtual thread, at most {@link #parallelism} at once. */
+  final boolean virtualThreads;
+  /** Whether children run on the pool shared by every class, rather than on one of their own. */
+  final boolean sharedPool;
+  /** Whether {@link #parallelism} is only the most which run at once, adjusted while running. */
+  final boolean adaptive;
+  /** The values of each dimension to run. Variations with other values are never created. */
+  final Selection selection;
+  /** Whether variations are described as a tree with a level per constructor dimension. */
+  final boolean hierarchical;
+
+  BurstOptions(int coveringStrength, int sampleMax, long seed, int maxVariations, boolean report,
+      boolean grayCode, boolean methodMajor, int parallelism, boolean parallelMethods,
+      boolean virtualThreads, boolean sharedPool, boolean adaptive, Selection selection,
+      boolean hierarchical) {
+    this.coveringStrength = coveringStrength;
+    this.sampleMax = sampleMax;
+    this.seed = seed;
+    this.maxVariations = maxVariations;
+    this.report = report;
+    this.grayCode = grayCode;
+    this.methodMajor = methodMajor;
+    this.parallelism = parallelism;
+    this.parallelMethods = parallelMethods;
+    this.virtualThreads = virtualThreads;
+    this.sharedPool = sharedPool;
+    this.adaptive = adaptive;
+    this.selection = selection;
+    this.hierarchical = hierarchical;
+  }
+
+  static BurstOptions forClass(Class<?> cls) {
+    int coveringStrength = Integer.getInteger(COVERING_PROPERTY, 0);
+    Covering covering = cls.getAnnotation(Covering.class);
+    if (covering != null) {
+      coveringStrength = covering.strength();
+    }
+
+    int sampleMax = Integer.getInteger(SAMPLE_PROPERTY, 0);
+    long seed = Sample.RANDOM_SEED;
+    Sample sample = cls.getAnnotation(Sample.class);
+    if (sample != null) {
+      sampleMax = sample.max();
+      seed = sample.seed();
+    }
+    // Like other properties, the seed only applies where the annotation leaves it random.
+    String seedProperty = System.getProperty(SEED_PROPERTY);
+    if (seedProperty != null && seed == Sample.RANDOM_SEED) {
+      seed = Long.parseLong(seedProperty);
+    }
+    if (seed == Sample.RANDOM_SEED) {
+      seed = new Random().nextLong();
+    }
+
+    if (coveringStrength < 0) {
+      throw new IllegalStateException(cls.getName() + " covering strength must be positive. ("
+          + coveringStrength + ')');
+    }
+    if (sampleMax < 0) {
+      throw new IllegalStateException(cls.getName() + " sample maximum must be positive. ("
+          + sampleMax + ')');
+    }
+    int maxVariations = Integer.getInteger(MAX_VARIATIONS_PROPERTY, Integer.MAX_VALUE);
+    if (maxVariations < 0) {
+      throw new IllegalStateException(MAX_VARIATIONS_PROPERTY + " must be positive. ("
+          + maxVariations + ')');
+    }
+    boolean report = Boolean.getBoolean(REPORT_PROPERTY);
+    boolean grayCode = cls.isAnnotationPresent(GrayCode.class)
+        || Boolean.getBoolean(GRAY_CODE_PROPERTY);
+    boolean methodMajor = cls.isAnnotationPresent(MethodMajor.class)
+        || Boolean.getBoolean(METHOD_MAJOR_PROPERTY);
+
+    int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, 1);
+    boolean parallelMethods = Boolean.getBoolean(PARALLEL_METHODS_PROPERTY);
+    boolean virtualThreads = Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY);
+    boolean sharedPool = Boolean.getBoolean(SHARED_POOL_PROPERTY);
+    boolean adaptive = Boolean.getBoolean(ADAPTIVE_PROPERTY);
+    Parallel parallel = cls.getAnnotation(Parallel.class);
+    if (parallel != null) {
+      parallelism = parallel.parallelism();
+      parallelMethods = parallel.methods();
+      virtualThreads = parallel.virtualThreads();
+      sharedPool = parallel.shared();
+      adaptive = parallel.adaptive();
+    }
+    // Virtual threads are meant to overlap tests which wait, so every test gets its own.
+    parallelMethods |= virtualThreads;
+    if (parallelism < 0) {
+      throw new IllegalStateException(cls.getName() + " parallelism must be positive. ("
+          + parallelism + ')');
+    }
+    if (parallelism == Parallel.PROCESSORS) {
+      parallelism = Runtime.getRuntime().availableProcessors();
+      if (adaptive) {
+        parallelism *= ADAPTIVE_HEADROOM;
+      }
+    }
+    Selection selection = Selection.parse(System.getProperty(SELECT_PROPERTY, ""));
+    boolean hierarchical = cls.isAnnotationPresent(Hierarchical.class)
+        || Boolean.getBoolean(HIERARCHICAL_PROPERTY);
+    return new BurstOptions(coveringStrength, sampleMax, seed, maxVariations, report, grayCode,
+        methodMajor, parallelism, parallelMethods, virtualThreads, sharedPool, adaptive,
+        selection, hierarchical);
+  }
+
+  /** Whether every variation of every test method is run. */
+  boolean isExhaustive() {
+    return coveringStrength == 0 && sampleMax == 0;
+  }
+}
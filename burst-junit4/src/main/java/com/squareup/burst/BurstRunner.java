@@ -1,35 +1,75 @@
 package com.squareup.burst;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
-import org.junit.runner.manipulation.Filter;
-import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.Statement;
+import org.junit.runners.model.TestClass;
 
-import static com.squareup.burst.BurstJUnit4.nameWithArguments;
 import static com.squareup.burst.Util.checkNotNull;
 
 /**
  * A set of tests associated with a particular variation of some test class.
  */
 final class BurstRunner extends BlockJUnit4ClassRunner {
+  /** Whether a variation of each test class has passed validation. */
+  private static final ClassValue<AtomicBoolean> validated = new ClassValue<AtomicBoolean>() {
+    @Override protected AtomicBoolean computeValue(Class<?> type) {
+      return new AtomicBoolean();
+    }
+  };
+
   private final TestConstructor constructor;
   private final Enum<?>[] constructorArgs;
   private final List<FrameworkMethod> methods;
+  private final Description description;
+  /** The description of each test, by identity as tests of one method are equal. */
+  private final Map<FrameworkMethod, Description> testDescriptions = new IdentityHashMap<>();
+  /** The resources of each test which uses any, by identity as tests of one method are equal. */
+  private final Map<FrameworkMethod, List<Semaphore>> resources = new IdentityHashMap<>();
+  /** Whether whoever runs this variation already holds the resources of all of its tests. */
+  private boolean resourcesHeld;
 
-  BurstRunner(Class<?> cls, TestConstructor constructor, Enum<?>[] constructorArgs,
-      List<FrameworkMethod> methods) throws InitializationError {
-    super(checkNotNull(cls, "cls"));
+  /**
+   * @param testClass the scanned test class, shared by every variation so that it is scanned and
+   * validated once.
+   * @param description the description of this variation, with a child for each of
+   * {@code methods} in the same order. Tests are reported with these rather than new ones.
+   */
+  BurstRunner(TestClass testClass, TestConstructor constructor, Enum<?>[] constructorArgs,
+      List<FrameworkMethod> methods, Description description) throws InitializationError {
+    super(checkNotNull(testClass, "testClass"));
     this.constructor = checkNotNull(constructor, "constructor");
     this.constructorArgs = checkNotNull(constructorArgs, "constructorArgs");
     this.methods = checkNotNull(methods, "methods");
+    this.description = checkNotNull(description, "description");
+    List<Description> children = description.getChildren();
+    if (children.size() != methods.size()) {
+      throw new IllegalArgumentException(String.format(
+          "Description has %d tests, but there are %d", children.size(), methods.size()));
+    }
+    for (int i = 0; i < methods.size(); i++) {
+      testDescriptions.put(methods.get(i), children.get(i));
+    }
+    for (FrameworkMethod method : methods) {
+      List<Semaphore> used = Resources.of(testClass.getJavaClass(),
+          Collections.singletonList(method), constructorArgs);
+      if (!used.isEmpty()) {
+        resources.put(method, used);
+      }
+    }
   }
 
   @Override protected List<FrameworkMethod> getChildren() {
@@ -37,18 +77,80 @@ final class BurstRunner extends BlockJUnit4ClassRunner {
   }
 
   @Override protected String getName() {
-    return nameWithArguments(super.getName(), constructorArgs,
-        constructor.getArgumentAnnotations());
+    return description.getDisplayName();
+  }
+
+  @Override public Description getDescription() {
+    return description;
   }
 
   @Override protected Description describeChild(FrameworkMethod method) {
-    return Description.createTestDescription(getName(), method.getName(), method.getAnnotations());
+    Description test = testDescriptions.get(method);
+    if (test == null) {
+      test = Description.createTestDescription(getName(), method.getName(),
+          method.getAnnotations());
+    }
+    return test;
   }
 
   @Override protected Object createTest() throws Exception {
     return constructor.newInstance(constructorArgs);
   }
 
+  /** Returns this variation's tests of {@code method}, or all of its tests if null. */
+  List<FrameworkMethod> tests(Method method) {
+    List<FrameworkMethod> children = ParentRunnerSpy.getFilteredChildren(this);
+    if (method == null) {
+      return children;
+    }
+    List<FrameworkMethod> tests = new ArrayList<>();
+    for (FrameworkMethod child : children) {
+      if (child.getMethod().equals(method)) {
+        tests.add(child);
+      }
+    }
+    return tests;
+  }
+
+  /**
+   * Runs this variation's tests of {@code method}, or all of its tests if null. Unlike
+   * {@link #run(RunNotifier)} this doesn't report this runner as a suite, as its tests may be run
+   * between those of other variations.
+   */
+  void runMethod(Method method, RunNotifier notifier) {
+    for (FrameworkMethod test : tests(method)) {
+      runChild(test, notifier);
+    }
+  }
+
+  /**
+   * Runs one of this variation's tests on a new instance, while the caller holds the resources it
+   * uses. Tests of the same variation may run concurrently, as they don't share an instance.
+   */
+  void runTest(FrameworkMethod test, RunNotifier notifier) {
+    super.runChild(test, notifier);
+  }
+
+  /** Makes this variation's tests skip acquiring their resources, as the caller holds them. */
+  void holdResources() {
+    resourcesHeld = true;
+  }
+
+  /** Runs a test once every resource it uses has room for it. */
+  @Override protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+    List<Semaphore> used = resources.get(method);
+    if (used == null || resourcesHeld) {
+      super.runChild(method, notifier);
+      return;
+    }
+    Resources.acquire(used);
+    try {
+      super.runChild(method, notifier);
+    } finally {
+      Resources.release(used);
+    }
+  }
+
   @Override protected Statement withBeforeClasses(Statement statement) {
     // The parent runner, BurstJUnit4, will handle @BeforeClass/@AfterClass/@ClassRule once for the
     // whole class. We don't want to repeat them for each variation.
@@ -67,6 +169,21 @@ final class BurstRunner extends BlockJUnit4ClassRunner {
     return Collections.emptyList();
   }
 
+  /**
+   * Validates the test class once rather than once per variation. Every variation shares the
+   * same TestClass, so the first to pass validation vouches for the rest.
+   */
+  @Override protected void collectInitializationErrors(List<Throwable> errors) {
+    AtomicBoolean classValidated = validated.get(getTestClass().getJavaClass());
+    if (classValidated.get()) {
+      return;
+    }
+    super.collectInitializationErrors(errors);
+    if (errors.isEmpty()) {
+      classValidated.set(true);
+    }
+  }
+
   @Override protected void validateConstructor(List<Throwable> errors) {
     // Constructor was already validated by Burst.
   }
@@ -75,36 +192,4 @@ final class BurstRunner extends BlockJUnit4ClassRunner {
       boolean isStatic, List<Throwable> errors) {
     // Methods were already validated by Burst.
   }
-
-  /*
-   * ParentRunner's default filter implementation generates a hierarchy of test descriptions,
-   * applies the filter to those descriptions, and removes any test nodes whose descriptions were
-   * all filtered out.
-   * <p>
-   * This would be problematic for us since we generate non-standard test descriptions which include
-   * parameter information. This implementation generates "plain" descriptions without parameter
-   * information and passes those to the filter.
-   */
-  @Override public void filter(Filter filter) throws NoTestsRemainException {
-    List<FrameworkMethod> filteredChildren = ParentRunnerSpy.getFilteredChildren(this);
-    // Iterate over a clone so that we can safely mutate the original.
-    for (FrameworkMethod child : new ArrayList<>(filteredChildren)) {
-      if (!filter.shouldRun(describeChildPlain(child))) {
-        filteredChildren.remove(child);
-      }
-    }
-    if (filteredChildren.isEmpty()) {
-      throw new NoTestsRemainException();
-    }
-  }
-
-  /**
-   * Generates a "plain" description of a burst test, with no parameter information. This should be
-   * used only for filtering. It would not be safe for {@link #describeChild(FrameworkMethod)} to
-   * return these plain descriptions, as then multiple tests would share the same description.
-   */
-  private Description describeChildPlain(FrameworkMethod method) {
-    return Description.createTestDescription(getTestClass().getJavaClass(),
-        method.getMethod().getName(), method.getAnnotations());
-  }
 }
@@ -0,0 +1,159 @@
+package com.squareup.burst;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.runner.Description;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * Describes the variations of a class as a tree with a level per constructor dimension, such as
+ * class, {@code Soda=PEPSI}, {@code Snack=CHIPS} and then the tests of that variation, so that no
+ * node has more children than its dimension has values.
+ * <p>
+ * Each node also tallies the tests under it which ran and failed, so that a failing slice of the
+ * variations shows up as a single node.
+ */
+final class DimensionTree {
+  private static final Logger logger = Logger.getLogger(DimensionTree.class.getName());
+
+  private final Description root;
+  /** The node of each description below the root, except for tests. */
+  private final Map<Description, Node> nodes = new IdentityHashMap<>();
+  /** The nodes which each test is under, from the root's child down to its variation. */
+  private final Map<Description, List<Node>> nodesByTest = new HashMap<>();
+  private final Set<Description> started = new HashSet<>();
+  private final Set<Description> failed = new HashSet<>();
+
+  /**
+   * @param root the description of the class, which receives the tree.
+   * @param children the {@link VariationRunner}s of the class, each described by the value of its
+   * last dimension.
+   */
+  DimensionTree(Description root, List<Runner> children) {
+    this.root = checkNotNull(root, "root");
+    checkNotNull(children, "children");
+
+    String className = root.getClassName();
+    Map<String, Node> nodesByPath = new LinkedHashMap<>();
+    for (Runner child : children) {
+      VariationRunner variation = (VariationRunner) child;
+      Description description = variation.getDescription();
+      String[] labels = variation.labels();
+      List<Node> path = new ArrayList<>(labels.length);
+      Description parent = root;
+      StringBuilder id = new StringBuilder(className).append('[');
+      for (int i = 0; i < labels.length - 1; i++) {
+        if (i > 0) {
+          id.append(", ");
+        }
+        id.append(labels[i]);
+        String key = id.toString();
+        Node node = nodesByPath.get(key);
+        if (node == null) {
+          node = new Node(Description.createSuiteDescription(labels[i], key + ']'));
+          parent.addChild(node.description);
+          nodesByPath.put(key, node);
+          nodes.put(node.description, node);
+        }
+        path.add(node);
+        parent = node.description;
+      }
+      parent.addChild(description);
+      if (labels.length > 0) {
+        Node node = new Node(description);
+        nodes.put(description, node);
+        path.add(node);
+      }
+      for (Description test : description.getChildren()) {
+        nodesByTest.put(test, path);
+      }
+    }
+  }
+
+  Description root() {
+    return root;
+  }
+
+  /** Returns a listener which records the tests of this tree which start and fail. */
+  RunListener tally() {
+    return new RunListener() {
+      @Override public void testStarted(Description description) {
+        synchronized (DimensionTree.this) {
+          started.add(description);
+        }
+      }
+
+      @Override public void testFailure(Failure failure) {
+        synchronized (DimensionTree.this) {
+          failed.add(failure.getDescription());
+        }
+      }
+    };
+  }
+
+  /** Logs how many of the tests under each node ran and failed, as tallied so far. */
+  synchronized void log(Level level) {
+    if (!logger.isLoggable(level)) {
+      return;
+    }
+    for (Node node : nodes.values()) {
+      node.ran = 0;
+      node.failed = 0;
+    }
+    for (Map.Entry<Description, List<Node>> entry : nodesByTest.entrySet()) {
+      boolean ran = started.contains(entry.getKey());
+      boolean failure = failed.contains(entry.getKey());
+      for (Node node : entry.getValue()) {
+        if (ran) {
+          node.ran++;
+        }
+        if (failure) {
+          node.failed++;
+        }
+      }
+    }
+    StringBuilder builder = new StringBuilder(root.getDisplayName());
+    append(builder, root, "\n  ");
+    logger.log(level, builder.toString());
+  }
+
+  private void append(StringBuilder builder, Description parent, String indent) {
+    for (Description child : parent.getChildren()) {
+      Node node = nodes.get(child);
+      if (node == null) {
+        continue;
+      }
+      builder.append(indent)
+          .append(child.getDisplayName())
+          .append(": ")
+          .append(node.failed)
+          .append(" of ")
+          .append(node.ran)
+          .append(" tests failed");
+      append(builder, child, indent + "  ");
+    }
+  }
+
+  /** A slice of the variations, which share the values of the first few dimensions. */
+  private static final class Node {
+    final Description description;
+    int ran;
+    int failed;
+
+    Node(Description description) {
+      this.description = description;
+    }
+  }
+}
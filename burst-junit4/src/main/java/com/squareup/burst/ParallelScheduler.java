@@ -0,0 +1,309 @@
+package com.squareup.burst;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Runs the children of a runner on a bounded pool of threads, and waits for all of them to finish.
+ * A pool is started for each run and shut down once it is finished.
+ * <p>
+ * With virtual threads, each child runs on its own virtual thread and a semaphore bounds how many
+ * run at once. Virtual threads need Java 21. On older runtimes a pool of platform threads is used
+ * instead.
+ * <p>
+ * With an adaptive limit, the parallelism is only the most children which may run at once. How
+ * many do is adjusted while they run, see {@link AdaptiveLimit}.
+ * <p>
+ * {@link org.junit.runner.notification.RunNotifier} serializes the events of listeners which are
+ * not marked as thread-safe, so children can report their tests concurrently.
+ */
+final class ParallelScheduler implements RunnerScheduler {
+  private static final Logger logger = Logger.getLogger(ParallelScheduler.class.getName());
+  /** {@code Executors.newVirtualThreadPerTaskExecutor()}, or null before Java 21. */
+  private static final Method newVirtualThreadPerTaskExecutor = findVirtualThreadPerTaskExecutor();
+  /** Whether the lack of virtual threads was logged, which is only worth doing once per JVM. */
+  private static final AtomicBoolean loggedNoVirtualThreads = new AtomicBoolean();
+
+  private final int parallelism;
+  private final String name;
+  private final boolean virtualThreads;
+  private final Semaphore permits;
+  private final AdaptiveLimit adaptiveLimit;
+  private final Level level;
+  private ExecutorService executor;
+  private final List<Future<?>> futures = new ArrayList<>();
+  /** Tasks whose resources had no room when they were scheduled, in order. */
+  private final Deque<Resources.Task> deferred = new ArrayDeque<>();
+  /** Guards {@link #holding} and {@link #releases}, which pool threads update. */
+  private final Object released = new Object();
+  /** How many tasks which hold their resources are running. */
+  private int holding;
+  /** How many tasks which held their resources have finished. */
+  private long releases;
+
+  /**
+   * @param parallelism the maximum number of children to run at once.
+   * @param name the prefix of the names of the pool's threads.
+   * @param virtualThreads whether to run each child on a virtual thread, if the runtime has them.
+   * @param adaptive whether to adjust how many children run at once, up to {@code parallelism}.
+   * @param level the level at which the adaptive limit settled on is logged.
+   */
+  ParallelScheduler(int parallelism, String name, boolean virtualThreads, boolean adaptive,
+      Level level) {
+    this.parallelism = parallelism;
+    this.name = name;
+    this.level = level;
+    this.virtualThreads = virtualThreads && newVirtualThreadPerTaskExecutor != null;
+    this.permits = new Semaphore(parallelism);
+    if (adaptive) {
+      this.adaptiveLimit = AdaptiveLimit.forProcessors(name, parallelism);
+    } else {
+      this.adaptiveLimit = null;
+    }
+    if (virtualThreads && newVirtualThreadPerTaskExecutor == null
+        && loggedNoVirtualThreads.compareAndSet(false, true)) {
+      logger.fine("Virtual threads need Java 21. Classes which ask for them, such as " + name
+          + ", run on platform threads instead.");
+    }
+  }
+
+  /**
+   * Runs {@code childStatement} once there is a thread for it. A {@link Resources.Task} whose
+   * resources have no room is deferred instead, so that it doesn't hold a thread while it waits,
+   * and is run once they do.
+   */
+  @Override public synchronized void schedule(Runnable childStatement) {
+    if (executor == null) {
+      executor = newExecutor();
+    }
+    dispatchDeferred();
+    if (childStatement instanceof Resources.Task) {
+      Resources.Task task = (Resources.Task) childStatement;
+      if (!tryDispatch(task)) {
+        deferred.add(task);
+      }
+      return;
+    }
+    dispatch(childStatement);
+  }
+
+  /** Runs each deferred task whose resources now have room, in the order they were scheduled. */
+  private void dispatchDeferred() {
+    for (Iterator<Resources.Task> i = deferred.iterator(); i.hasNext(); ) {
+      if (tryDispatch(i.next())) {
+        i.remove();
+      }
+    }
+  }
+
+  /** Runs {@code task} if its resources have room, holding them until it finishes. */
+  private boolean tryDispatch(Resources.Task task) {
+    if (!Resources.tryAcquire(task.semaphores)) {
+      return false;
+    }
+    dispatchHeld(task);
+    return true;
+  }
+
+  private void dispatchHeld(final Resources.Task task) {
+    synchronized (released) {
+      holding++;
+    }
+    Runnable child = new Runnable() {
+      @Override public void run() {
+        try {
+          task.runHolding();
+        } finally {
+          Resources.release(task.semaphores);
+          synchronized (released) {
+            holding--;
+            releases++;
+            released.notifyAll();
+          }
+        }
+      }
+    };
+    try {
+      dispatch(child);
+    } catch (RuntimeException e) {
+      Resources.release(task.semaphores);
+      synchronized (released) {
+        holding--;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Runs the deferred tasks as their resources free up. While tasks of this scheduler hold them,
+   * this waits for those to finish. Otherwise another class holds them, so this thread, rather than
+   * one of the pool's, waits for the first deferred task's resources.
+   */
+  private synchronized void drainDeferred() {
+    while (true) {
+      long seen;
+      synchronized (released) {
+        seen = releases;
+      }
+      dispatchDeferred();
+      if (deferred.isEmpty()) {
+        return;
+      }
+      synchronized (released) {
+        try {
+          while (releases == seen && holding > 0) {
+            released.wait();
+          }
+        } catch (InterruptedException e) {
+          // Give up on the deferred tasks, and let the wait for the others cancel them.
+          deferred.clear();
+          Thread.currentThread().interrupt();
+          return;
+        }
+        if (releases != seen) {
+          continue;
+        }
+      }
+      Resources.Task first = deferred.removeFirst();
+      Resources.acquire(first.semaphores);
+      dispatchHeld(first);
+    }
+  }
+
+  private void dispatch(final Runnable childStatement) {
+    if (!virtualThreads && adaptiveLimit == null) {
+      futures.add(executor.submit(childStatement));
+      return;
+    }
+    // Virtual threads are unbounded, and an adaptive limit may be below the number of threads, so
+    // wait for a permit before starting another child.
+    acquire();
+    try {
+      futures.add(executor.submit(new Runnable() {
+        @Override public void run() {
+          try {
+            childStatement.run();
+          } finally {
+            release();
+          }
+        }
+      }));
+    } catch (RuntimeException e) {
+      release();
+      throw e;
+    }
+  }
+
+  private void acquire() {
+    if (adaptiveLimit != null) {
+      adaptiveLimit.acquire();
+    } else {
+      permits.acquireUninterruptibly();
+    }
+  }
+
+  private void release() {
+    if (adaptiveLimit != null) {
+      adaptiveLimit.release();
+    } else {
+      permits.release();
+    }
+  }
+
+  @Override public void finished() {
+    drainDeferred();
+    List<Future<?>> scheduled;
+    synchronized (this) {
+      scheduled = new ArrayList<>(futures);
+      futures.clear();
+    }
+    try {
+      awaitAll(scheduled);
+      if (adaptiveLimit != null && !scheduled.isEmpty()) {
+        adaptiveLimit.log(level);
+      }
+    } finally {
+      synchronized (this) {
+        if (executor != null) {
+          executor.shutdown();
+          executor = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for every one of {@code futures} to finish. If one fails or the wait is interrupted, the
+   * others are cancelled.
+   */
+  static void awaitAll(List<Future<?>> futures) {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  private ExecutorService newExecutor() {
+    if (virtualThreads) {
+      try {
+        return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new AssertionError(e);
+      }
+    }
+    return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, name + '-' + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  private static Method findVirtualThreadPerTaskExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      // Java 19 and 20 have the method, but it throws unless preview features are enabled.
+      ((ExecutorService) method.invoke(null)).shutdown();
+      return method;
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      return null;
+    }
+  }
+}
@@ -1,9 +1,11 @@
 package com.squareup.burst;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import org.junit.runners.ParentRunner;
 
@@ -12,12 +14,15 @@ import org.junit.runners.ParentRunner;
  */
 final class ParentRunnerSpy {
   private static final Method getFilteredChildrenMethod;
+  private static final Field filteredChildrenField;
 
   static {
     try {
       getFilteredChildrenMethod = ParentRunner.class.getDeclaredMethod("getFilteredChildren");
       getFilteredChildrenMethod.setAccessible(true);
-    } catch (NoSuchMethodException e) {
+      filteredChildrenField = ParentRunner.class.getDeclaredField("filteredChildren");
+      filteredChildrenField.setAccessible(true);
+    } catch (NoSuchMethodException | NoSuchFieldException e) {
       throw new ExceptionInInitializerError(e);
     }
   }
@@ -35,6 +40,18 @@ final class ParentRunnerSpy {
     }
   }
 
+  /**
+   * Reflectively replaces a {@link ParentRunner}'s filtered children, which
+   * {@link #getFilteredChildren(ParentRunner)} only returns a copy of.
+   */
+  static <T> void setFilteredChildren(ParentRunner<T> parentRunner, List<T> children) {
+    try {
+      filteredChildrenField.set(parentRunner, Collections.unmodifiableList(children));
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException("Failed to set filteredChildren", e);
+    }
+  }
+
   private ParentRunnerSpy() {
     throw new AssertionError("No instances.");
   }
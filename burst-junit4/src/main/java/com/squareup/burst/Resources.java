@@ -0,0 +1,218 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Uses;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.Ignore;
+import org.junit.runners.model.FrameworkMethod;
+
+/**
+ * The {@link Uses resources} of every test in the JVM, each with a semaphore of its capacity.
+ * Semaphores are always acquired in order of resource name, so tests which need several resources
+ * cannot deadlock one another.
+ */
+final class Resources {
+  private static final Map<String, Integer> capacities = new HashMap<>();
+  private static final Map<String, Semaphore> semaphores = new HashMap<>();
+  /** The {@link Uses} of each constant of an enum by ordinal, or null where there is none. */
+  private static final ClassValue<Uses[]> constantUses = new ClassValue<Uses[]>() {
+    @Override protected Uses[] computeValue(Class<?> type) {
+      Object[] constants = type.getEnumConstants();
+      Uses[] uses = new Uses[constants.length];
+      for (int i = 0; i < constants.length; i++) {
+        try {
+          uses[i] = type.getField(((Enum<?>) constants[i]).name()).getAnnotation(Uses.class);
+        } catch (NoSuchFieldException e) {
+          throw new AssertionError(e);
+        }
+      }
+      return uses;
+    }
+  };
+
+  /**
+   * Returns the semaphores of every resource which any of {@code tests} uses when run with
+   * {@code constructorArgs}, in order of resource name. Ignored tests don't run, so they use none.
+   *
+   * @throws IllegalStateException If a resource is declared with a capacity which is not positive,
+   * or which differs from an earlier declaration.
+   */
+  static List<Semaphore> of(Class<?> cls, List<FrameworkMethod> tests, Enum<?>[] constructorArgs) {
+    Map<String, Semaphore> uses = new TreeMap<>();
+    boolean runs = false;
+    for (FrameworkMethod test : tests) {
+      if (test.getAnnotation(Ignore.class) != null) {
+        continue;
+      }
+      runs = true;
+      add(uses, test.getAnnotation(Uses.class));
+      if (test instanceof BurstMethod) {
+        addConstants(uses, ((BurstMethod) test).arguments());
+      }
+    }
+    if (!runs) {
+      return Collections.emptyList();
+    }
+    addClass(uses, cls);
+    addConstants(uses, constructorArgs);
+    return list(uses);
+  }
+
+  /**
+   * Acquires each of {@code semaphores} in order, waiting until all of them have room. On a
+   * {@link ForkJoinPool}, such as the {@link SharedPool}, the pool may start another worker while
+   * this one waits, so that tests waiting on a resource can't starve every other class.
+   */
+  static void acquire(List<Semaphore> semaphores) {
+    boolean interrupted = false;
+    for (Semaphore semaphore : semaphores) {
+      Permit permit = new Permit(semaphore);
+      while (!permit.acquired) {
+        try {
+          ForkJoinPool.managedBlock(permit);
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Acquires each of {@code semaphores} if all of them have room, without waiting.
+   *
+   * @return false if one had no room, in which case none are held.
+   */
+  static boolean tryAcquire(List<Semaphore> semaphores) {
+    for (int i = 0; i < semaphores.size(); i++) {
+      if (!new Permit(semaphores.get(i)).isReleasable()) {
+        release(semaphores.subList(0, i));
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static void release(List<Semaphore> semaphores) {
+    for (int i = semaphores.size() - 1; i >= 0; i--) {
+      semaphores.get(i).release();
+    }
+  }
+
+  private static List<Semaphore> list(Map<String, Semaphore> uses) {
+    if (uses.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(uses.values());
+  }
+
+  private static void addClass(Map<String, Semaphore> uses, Class<?> cls) {
+    for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+      add(uses, c.getAnnotation(Uses.class));
+    }
+  }
+
+  private static void addConstants(Map<String, Semaphore> uses, Enum<?>[] values) {
+    for (Enum<?> value : values) {
+      add(uses, constantUses.get(value.getDeclaringClass())[value.ordinal()]);
+    }
+  }
+
+  private static void add(Map<String, Semaphore> uses, Uses annotation) {
+    if (annotation == null) {
+      return;
+    }
+    for (String name : annotation.value()) {
+      uses.put(name, semaphore(name, annotation.capacity()));
+    }
+  }
+
+  private static synchronized Semaphore semaphore(String name, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalStateException("Resource " + name + " capacity must be positive. ("
+          + capacity + ')');
+    }
+    Integer existing = capacities.get(name);
+    if (existing == null) {
+      capacities.put(name, capacity);
+      // Fair, so that a test waiting on a busy resource isn't overtaken indefinitely.
+      Semaphore semaphore = new Semaphore(capacity, true);
+      semaphores.put(name, semaphore);
+      return semaphore;
+    }
+    if (existing != capacity) {
+      throw new IllegalStateException("Resource " + name + " is declared with capacities "
+          + existing + " and " + capacity + '.');
+    }
+    return semaphores.get(name);
+  }
+
+  /**
+   * A child of a runner which uses resources. Running it waits until they all have room, unless a
+   * scheduler which defers children until then, such as {@link ParallelScheduler}, acquires them
+   * with {@link #tryAcquire} and calls {@link #runHolding} instead.
+   */
+  abstract static class Task implements Runnable {
+    final List<Semaphore> semaphores;
+
+    /** @param semaphores the semaphores of the resources this child uses, in order of name. */
+    Task(List<Semaphore> semaphores) {
+      this.semaphores = semaphores;
+    }
+
+    @Override public final void run() {
+      acquire(semaphores);
+      try {
+        runHolding();
+      } finally {
+        release(semaphores);
+      }
+    }
+
+    /** Runs this child while its resources are held. */
+    abstract void runHolding();
+  }
+
+  /** Waits for a permit of a semaphore, telling a fork-join pool that it is blocked. */
+  private static final class Permit implements ForkJoinPool.ManagedBlocker {
+    private final Semaphore semaphore;
+    boolean acquired;
+
+    Permit(Semaphore semaphore) {
+      this.semaphore = semaphore;
+    }
+
+    @Override public boolean isReleasable() {
+      if (!acquired) {
+        try {
+          // Unlike tryAcquire(), this waits its turn behind the tests already waiting.
+          acquired = semaphore.tryAcquire(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return acquired;
+    }
+
+    @Override public boolean block() {
+      if (!acquired) {
+        semaphore.acquireUninterruptibly();
+        acquired = true;
+      }
+      return true;
+    }
+  }
+
+  private Resources() {
+    throw new AssertionError("No instances.");
+  }
+}
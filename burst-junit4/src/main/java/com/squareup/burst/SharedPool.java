@@ -0,0 +1,125 @@
+package com.squareup.burst;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * One work-stealing pool shared by every {@link BurstJUnit4} in the JVM which opts into it. When
+ * several classes run at once, their variations interleave on the same workers, so a small class
+ * fills the threads left idle at the end of a large one instead of starting a pool of its own.
+ * <p>
+ * The pool measures how busy it keeps its workers: the time spent running tests over the makespan,
+ * the time from the first test starting to the last one finishing.
+ */
+final class SharedPool {
+  private static final Logger logger = Logger.getLogger(SharedPool.class.getName());
+  private static SharedPool instance;
+
+  private final ForkJoinPool pool;
+  private final AtomicLong busyNanos = new AtomicLong();
+  private final AtomicLong firstStartNanos = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong lastEndNanos = new AtomicLong(Long.MIN_VALUE);
+
+  SharedPool(int parallelism) {
+    // Async mode runs submitted tasks in FIFO order, keeping each class's variations in order.
+    pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null,
+        true);
+  }
+
+  /** Returns the pool of this JVM, with one worker per processor. */
+  static synchronized SharedPool get() {
+    if (instance == null) {
+      instance = new SharedPool(Runtime.getRuntime().availableProcessors());
+    }
+    return instance;
+  }
+
+  int parallelism() {
+    return pool.getParallelism();
+  }
+
+  /** The time from the first task starting to the last task finishing, in nanoseconds. */
+  long makespanNanos() {
+    long first = firstStartNanos.get();
+    long last = lastEndNanos.get();
+    if (first == Long.MAX_VALUE || last == Long.MIN_VALUE) {
+      return 0;
+    }
+    return last - first;
+  }
+
+  /** The fraction of the workers' time within the makespan which was spent running tasks. */
+  double utilization() {
+    long makespan = makespanNanos();
+    if (makespan == 0) {
+      return 0.0;
+    }
+    return (double) busyNanos.get() / ((double) makespan * parallelism());
+  }
+
+  /**
+   * Returns a scheduler which runs children on this pool and waits only for its own children. Once
+   * they finish, the pool's statistics so far are logged at {@code level}.
+   */
+  RunnerScheduler newScheduler(final String name, final Level level) {
+    return new RunnerScheduler() {
+      private final List<Future<?>> futures = new ArrayList<>();
+
+      @Override public synchronized void schedule(Runnable childStatement) {
+        futures.add(pool.submit(measured(childStatement)));
+      }
+
+      @Override public void finished() {
+        List<Future<?>> scheduled;
+        synchronized (this) {
+          scheduled = new ArrayList<>(futures);
+          futures.clear();
+        }
+        ParallelScheduler.awaitAll(scheduled);
+        if (logger.isLoggable(level)) {
+          logger.log(level, String.format(
+              "%s finished. Shared pool of %d threads: makespan %d ms, utilization %.0f%%", name,
+              parallelism(), makespanNanos() / 1000000, utilization() * 100));
+        }
+      }
+    };
+  }
+
+  private Runnable measured(final Runnable task) {
+    return new Runnable() {
+      @Override public void run() {
+        long start = System.nanoTime();
+        min(firstStartNanos, start);
+        try {
+          task.run();
+        } finally {
+          long end = System.nanoTime();
+          busyNanos.addAndGet(end - start);
+          max(lastEndNanos, end);
+        }
+      }
+    };
+  }
+
+  private static void min(AtomicLong value, long candidate) {
+    for (long current = value.get(); candidate < current; current = value.get()) {
+      if (value.compareAndSet(current, candidate)) {
+        return;
+      }
+    }
+  }
+
+  private static void max(AtomicLong value, long candidate) {
+    for (long current = value.get(); candidate > current; current = value.get()) {
+      if (value.compareAndSet(current, candidate)) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package com.squareup.burst;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import org.junit.runner.Description;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.Filterable;
+import org.junit.runner.manipulation.InvalidOrderingException;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Orderable;
+import org.junit.runner.manipulation.Orderer;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+import org.junit.runners.model.TestClass;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * A placeholder for the {@link BurstRunner} of a variation, which is only built to run it. It holds
+ * no more than the index of the variation's constructor arguments and its tests, so that a class
+ * with many variations doesn't keep a runner alive for each of them. The arguments are decoded from
+ * the shared {@link VariationSpace} when needed, and the variation is described just as the runner
+ * would.
+ * <p>
+ * A variation's description is kept until its runner is built, and then left to the runner, so
+ * that it is dropped along with the runner once the variation has run.
+ */
+final class VariationRunner extends Runner implements Filterable, Orderable {
+  private final TestClass testClass;
+  private final TestConstructor constructor;
+  /** The constructor arguments of every variation of the class. */
+  private final VariationSpace constructorVariations;
+  /** The index of this variation's constructor arguments in {@link #constructorVariations}. */
+  private final long constructorIndex;
+  /** Whether this variation is described by its last dimension's value, under the others. */
+  private final boolean nested;
+  /** This variation's tests. Shared with other variations until filtered or sorted. */
+  private List<FrameworkMethod> methods;
+  /** The description of this variation, built on first use and dropped once it is run. */
+  private Description description;
+
+  VariationRunner(TestClass testClass, TestConstructor constructor,
+      VariationSpace constructorVariations, long constructorIndex, List<FrameworkMethod> methods,
+      boolean nested) {
+    this.testClass = checkNotNull(testClass, "testClass");
+    this.constructor = checkNotNull(constructor, "constructor");
+    this.constructorVariations = checkNotNull(constructorVariations, "constructorVariations");
+    this.constructorIndex = constructorIndex;
+    this.methods = checkNotNull(methods, "methods");
+    this.nested = nested;
+  }
+
+  /**
+   * Builds the runner of this variation. Once it is done running, it may be dropped.
+   *
+   * @throws InitializationError If the test class is invalid. Only the first variation of a class
+   * validates it.
+   */
+  BurstRunner create() throws InitializationError {
+    Description description;
+    synchronized (this) {
+      description = getDescription();
+      // The runner reports with this description while it runs. Later uses rebuild an equal one.
+      this.description = null;
+    }
+    return new BurstRunner(testClass, constructor, constructorArgs(), methods, description);
+  }
+
+  private Enum<?>[] constructorArgs() {
+    return constructorVariations.get(constructorIndex);
+  }
+
+  private BurstRunner runner() {
+    try {
+      return create();
+    } catch (InitializationError e) {
+      // The class was validated when its first variation was created.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override public synchronized Description getDescription() {
+    if (description == null) {
+      String name = name();
+      if (nested && constructorVariations.dimensions() > 0) {
+        String[] labels = labels();
+        description = Description.createSuiteDescription(labels[labels.length - 1], name,
+            testClass.getAnnotations());
+      } else {
+        description = Description.createSuiteDescription(name, testClass.getAnnotations());
+      }
+      for (FrameworkMethod method : methods) {
+        description.addChild(describe(name, method));
+      }
+    }
+    return description;
+  }
+
+  private String name() {
+    return constructor.getArgumentNames().name(testClass.getName(), constructorArgs());
+  }
+
+  /** Labels each constructor argument of this variation with its dimension, such as Soda=PEPSI. */
+  String[] labels() {
+    ArgumentNames names = constructor.getArgumentNames();
+    Enum<?>[] constructorArgs = constructorArgs();
+    String[] labels = new String[constructorArgs.length];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = names.label(i, constructorArgs[i]);
+    }
+    return labels;
+  }
+
+  private static Description describe(String name, FrameworkMethod method) {
+    return Description.createTestDescription(name, method.getName(), method.getAnnotations());
+  }
+
+  @Override public void run(RunNotifier notifier) {
+    runner().run(notifier);
+  }
+
+  /** Returns this variation's tests of {@code method}, or all of its tests if null. */
+  List<FrameworkMethod> tests(Method method) {
+    if (method == null) {
+      return methods;
+    }
+    List<FrameworkMethod> tests = new ArrayList<>();
+    for (FrameworkMethod test : methods) {
+      if (test.getMethod().equals(method)) {
+        tests.add(test);
+      }
+    }
+    return tests;
+  }
+
+  /**
+   * Returns a child which runs this variation's tests of {@code method}, or the whole variation if
+   * null. If they use resources, the child is a {@link Resources.Task} which holds all of them
+   * while it runs, so that a scheduler may defer it until they have room.
+   */
+  Runnable task(final Method method, final RunNotifier notifier) {
+    List<Semaphore> used =
+        Resources.of(testClass.getJavaClass(), tests(method), constructorArgs());
+    if (used.isEmpty()) {
+      return new Runnable() {
+        @Override public void run() {
+          runVariation(runner(), method, notifier);
+        }
+      };
+    }
+    return new Resources.Task(used) {
+      @Override void runHolding() {
+        BurstRunner runner = runner();
+        runner.holdResources();
+        runVariation(runner, method, notifier);
+      }
+    };
+  }
+
+  private static void runVariation(BurstRunner runner, Method method, RunNotifier notifier) {
+    if (method == null) {
+      runner.run(notifier);
+    } else {
+      runner.runMethod(method, notifier);
+    }
+  }
+
+  /**
+   * Schedules each of this variation's tests of {@code method} on {@code scheduler}, as a
+   * {@link Resources.Task} if it uses resources. They share a runner, which is dropped once the
+   * last of them has run.
+   */
+  void scheduleTests(Method method, final RunNotifier notifier, RunnerScheduler scheduler) {
+    List<FrameworkMethod> tests = tests(method);
+    if (tests.isEmpty()) {
+      return;
+    }
+    final BurstRunner runner = runner();
+    Enum<?>[] constructorArgs = constructorArgs();
+    for (final FrameworkMethod test : tests) {
+      List<Semaphore> used = Resources.of(testClass.getJavaClass(),
+          Collections.singletonList(test), constructorArgs);
+      if (used.isEmpty()) {
+        scheduler.schedule(new Runnable() {
+          @Override public void run() {
+            runner.runTest(test, notifier);
+          }
+        });
+      } else {
+        scheduler.schedule(new Resources.Task(used) {
+          @Override void runHolding() {
+            runner.runTest(test, notifier);
+          }
+        });
+      }
+    }
+  }
+
+  /*
+   * ParentRunner's default filter implementation generates a hierarchy of test descriptions,
+   * applies the filter to those descriptions, and removes any test nodes whose descriptions were
+   * all filtered out.
+   * <p>
+   * This would be problematic for us since we generate non-standard test descriptions which include
+   * parameter information. This implementation generates "plain" descriptions without parameter
+   * information and passes those to the filter. It would not be safe to describe tests this way
+   * otherwise, as then multiple tests would share the same description.
+   */
+  @Override public void filter(Filter filter) throws NoTestsRemainException {
+    filter(filter, new HashMap<Method, Boolean>());
+  }
+
+  /**
+   * Filters this variation's tests, consulting {@code filter} once per test method.
+   *
+   * @param verdicts whether each method should run, shared with other variations of the class.
+   */
+  void filter(Filter filter, Map<Method, Boolean> verdicts) throws NoTestsRemainException {
+    List<FrameworkMethod> filtered = new ArrayList<>(methods.size());
+    for (FrameworkMethod method : methods) {
+      Boolean verdict = verdicts.get(method.getMethod());
+      if (verdict == null) {
+        verdict = filter.shouldRun(Description.createTestDescription(testClass.getJavaClass(),
+            method.getMethod().getName(), method.getAnnotations()));
+        verdicts.put(method.getMethod(), verdict);
+      }
+      if (verdict) {
+        filtered.add(method);
+      }
+    }
+    if (filtered.size() < methods.size()) {
+      setMethods(filtered);
+    }
+    if (filtered.isEmpty()) {
+      throw new NoTestsRemainException();
+    }
+  }
+
+  @Override public void sort(final Sorter sorter) {
+    final String name = name();
+    List<FrameworkMethod> sorted = new ArrayList<>(methods);
+    Collections.sort(sorted, new Comparator<FrameworkMethod>() {
+      @Override public int compare(FrameworkMethod a, FrameworkMethod b) {
+        return sorter.compare(describe(name, a), describe(name, b));
+      }
+    });
+    setMethods(sorted);
+  }
+
+  @Override public void order(Orderer orderer) throws InvalidOrderingException {
+    String name = name();
+    Map<Description, List<FrameworkMethod>> methodsByDescription = new LinkedHashMap<>();
+    for (FrameworkMethod method : methods) {
+      Description description = describe(name, method);
+      List<FrameworkMethod> described = methodsByDescription.get(description);
+      if (described == null) {
+        described = new ArrayList<>(1);
+        methodsByDescription.put(description, described);
+      }
+      described.add(method);
+    }
+    List<FrameworkMethod> ordered = new ArrayList<>(methods.size());
+    for (Description description : orderer.order(methodsByDescription.keySet())) {
+      ordered.addAll(methodsByDescription.get(description));
+    }
+    setMethods(ordered);
+  }
+
+  private synchronized void setMethods(List<FrameworkMethod> methods) {
+    this.methods = methods;
+    description = null;
+  }
+}
@@ -0,0 +1,81 @@
+package com.squareup.burst;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class AdaptiveLimitTest {
+  @Test public void climbsWhileThroughputImproves() {
+    AdaptiveLimit limit = new AdaptiveLimit("test", 8, 2, 0);
+    limit.adjust(10, 0, 0);
+    assertThat(limit.limit()).isEqualTo(3);
+    limit.adjust(15, 0, 0);
+    assertThat(limit.limit()).isEqualTo(4);
+    limit.adjust(20, 0, 0);
+    assertThat(limit.limit()).isEqualTo(5);
+  }
+
+  @Test public void turnsBackWhenThroughputDrops() {
+    AdaptiveLimit limit = new AdaptiveLimit("test", 8, 4, 0);
+    limit.adjust(20, 0, 0);
+    assertThat(limit.limit()).isEqualTo(5);
+    limit.adjust(15, 0, 0);
+    assertThat(limit.limit()).isEqualTo(4);
+    // Within tolerance of the last window, so keep going the same way.
+    limit.adjust(14.5, 0, 0);
+    assertThat(limit.limit()).isEqualTo(3);
+  }
+
+  @Test public void staysWithinRange() {
+    AdaptiveLimit limit = new AdaptiveLimit("test", 3, 10, 0);
+    assertThat(limit.limit()).isEqualTo(3);
+    // At the top, so the only step is down.
+    limit.adjust(10, 0, 0);
+    assertThat(limit.limit()).isEqualTo(2);
+    limit.adjust(10, 0, 0);
+    assertThat(limit.limit()).isEqualTo(1);
+    limit.adjust(10, 0, 0);
+    assertThat(limit.limit()).isEqualTo(2);
+  }
+
+  @Test public void halvesUnderHeapPressure() {
+    AdaptiveLimit limit = new AdaptiveLimit("test", 16, 8, 0);
+    limit.adjust(100, 0.95, 1);
+    assertThat(limit.limit()).isEqualTo(4);
+    limit.adjust(100, 0.95, 2);
+    assertThat(limit.limit()).isEqualTo(2);
+    // Once the pressure is gone, it steps down until throughput drops, then climbs back.
+    limit.adjust(100, 0.5, 3);
+    assertThat(limit.limit()).isEqualTo(1);
+    limit.adjust(50, 0.5, 4);
+    assertThat(limit.limit()).isEqualTo(2);
+    limit.adjust(100, 0.5, 5);
+    assertThat(limit.limit()).isEqualTo(3);
+  }
+
+  @Test public void ignoresHeapReadingWithoutNewCollection() {
+    AdaptiveLimit limit = new AdaptiveLimit("test", 16, 8, 0);
+    limit.adjust(100, 0.95, 1);
+    assertThat(limit.limit()).isEqualTo(4);
+    // The heap hasn't been collected since, so the same reading is stale rather than pressure.
+    limit.adjust(100, 0.95, 1);
+    assertThat(limit.limit()).isEqualTo(3);
+    limit.adjust(100, 0.95, 1);
+    assertThat(limit.limit()).isEqualTo(2);
+    limit.adjust(100, 0.95, 1);
+    assertThat(limit.limit()).isEqualTo(1);
+    limit.adjust(100, 0.95, 1);
+    assertThat(limit.limit()).isEqualTo(2);
+  }
+
+  @Test public void heapReadingBeforeStartIsIgnored() {
+    AdaptiveLimit limit = new AdaptiveLimit("test", 16, 8, 5);
+    limit.adjust(100, 0.95, 5);
+    assertThat(limit.limit()).isEqualTo(9);
+  }
+
+  @Test public void cpuLimitIsPositive() {
+    assertThat(AdaptiveLimit.cpuLimit()).isBetween(1,
+        Runtime.getRuntime().availableProcessors());
+  }
+}
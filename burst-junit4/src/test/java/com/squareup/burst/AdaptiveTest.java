@@ -0,0 +1,21 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Parallel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Parallel(parallelism = 4, adaptive = true)
+public class AdaptiveTest {
+  @Burst Soda soda;
+  @Burst Snack snack;
+
+  @Test public void testMethod() throws InterruptedException {
+    Thread.sleep(5);
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+  }
+}
@@ -1,9 +1,21 @@
 package com.squareup.burst;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.Request;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Ordering;
 import org.junit.runners.model.InitializationError;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 public final class BurstJUnit4Test {
   private final JournalingListener listener = new JournalingListener();
@@ -289,4 +301,481 @@ public final class BurstJUnit4Test {
         "START testMethod[Drink=RC_COLA](com.squareup.burst.NamedFieldAndNamedMethodTest[Food=CANDY])",
         "FINISH testMethod[Drink=RC_COLA](com.squareup.burst.NamedFieldAndNamedMethodTest[Food=CANDY])");
   }
+
+  @Test public void covering() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(CoveringTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START testMethod[TIME](com.squareup.burst.CoveringTest[PEPSI, CHIPS])",
+        "FINISH testMethod[TIME](com.squareup.burst.CoveringTest[PEPSI, CHIPS])",
+        "START testMethod[COSMO](com.squareup.burst.CoveringTest[PEPSI, NUTS])",
+        "FINISH testMethod[COSMO](com.squareup.burst.CoveringTest[PEPSI, NUTS])",
+        "START testMethod[POPULAR_SCIENCE](com.squareup.burst.CoveringTest[PEPSI, CANDY])",
+        "FINISH testMethod[POPULAR_SCIENCE](com.squareup.burst.CoveringTest[PEPSI, CANDY])",
+        "START testMethod[COSMO](com.squareup.burst.CoveringTest[COKE, CHIPS])",
+        "FINISH testMethod[COSMO](com.squareup.burst.CoveringTest[COKE, CHIPS])",
+        "START testMethod[TIME](com.squareup.burst.CoveringTest[COKE, NUTS])",
+        "FINISH testMethod[TIME](com.squareup.burst.CoveringTest[COKE, NUTS])",
+        "START testMethod[POPULAR_SCIENCE](com.squareup.burst.CoveringTest[COKE, NUTS])",
+        "FINISH testMethod[POPULAR_SCIENCE](com.squareup.burst.CoveringTest[COKE, NUTS])",
+        "START testMethod[TIME](com.squareup.burst.CoveringTest[COKE, CANDY])",
+        "FINISH testMethod[TIME](com.squareup.burst.CoveringTest[COKE, CANDY])",
+        "START testMethod[POPULAR_SCIENCE](com.squareup.burst.CoveringTest[RC_COLA, CHIPS])",
+        "FINISH testMethod[POPULAR_SCIENCE](com.squareup.burst.CoveringTest[RC_COLA, CHIPS])",
+        "START testMethod[TIME](com.squareup.burst.CoveringTest[RC_COLA, NUTS])",
+        "FINISH testMethod[TIME](com.squareup.burst.CoveringTest[RC_COLA, NUTS])",
+        "START testMethod[COSMO](com.squareup.burst.CoveringTest[RC_COLA, CANDY])",
+        "FINISH testMethod[COSMO](com.squareup.burst.CoveringTest[RC_COLA, CANDY])");
+  }
+
+  @Test public void constraint() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(ConstraintTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START unconstrained(com.squareup.burst.ConstraintTest[PEPSI])",
+        "FINISH unconstrained(com.squareup.burst.ConstraintTest[PEPSI])",
+        "START testMethod[CHIPS](com.squareup.burst.ConstraintTest[PEPSI])",
+        "FINISH testMethod[CHIPS](com.squareup.burst.ConstraintTest[PEPSI])",
+        "START testMethod[NUTS](com.squareup.burst.ConstraintTest[PEPSI])",
+        "FINISH testMethod[NUTS](com.squareup.burst.ConstraintTest[PEPSI])",
+        "START testMethod[CANDY](com.squareup.burst.ConstraintTest[PEPSI])",
+        "FINISH testMethod[CANDY](com.squareup.burst.ConstraintTest[PEPSI])",
+        "START unconstrained(com.squareup.burst.ConstraintTest[COKE])",
+        "FINISH unconstrained(com.squareup.burst.ConstraintTest[COKE])",
+        "START testMethod[CHIPS](com.squareup.burst.ConstraintTest[COKE])",
+        "FINISH testMethod[CHIPS](com.squareup.burst.ConstraintTest[COKE])",
+        "START testMethod[NUTS](com.squareup.burst.ConstraintTest[COKE])",
+        "FINISH testMethod[NUTS](com.squareup.burst.ConstraintTest[COKE])",
+        "START testMethod[CANDY](com.squareup.burst.ConstraintTest[COKE])",
+        "FINISH testMethod[CANDY](com.squareup.burst.ConstraintTest[COKE])",
+        "START unconstrained(com.squareup.burst.ConstraintTest[RC_COLA])",
+        "FINISH unconstrained(com.squareup.burst.ConstraintTest[RC_COLA])",
+        "START testMethod[CHIPS](com.squareup.burst.ConstraintTest[RC_COLA])",
+        "FINISH testMethod[CHIPS](com.squareup.burst.ConstraintTest[RC_COLA])",
+        "START testMethod[NUTS](com.squareup.burst.ConstraintTest[RC_COLA])",
+        "FINISH testMethod[NUTS](com.squareup.burst.ConstraintTest[RC_COLA])");
+  }
+
+  @Test public void values() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(ValuesTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START testMethod[NUTS](com.squareup.burst.ValuesTest[PEPSI])",
+        "FINISH testMethod[NUTS](com.squareup.burst.ValuesTest[PEPSI])",
+        "START testMethod[NUTS](com.squareup.burst.ValuesTest[COKE])",
+        "FINISH testMethod[NUTS](com.squareup.burst.ValuesTest[COKE])");
+  }
+
+  @Test public void symmetric() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(SymmetricTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START testMethod[PEPSI](com.squareup.burst.SymmetricTest[PEPSI])",
+        "FINISH testMethod[PEPSI](com.squareup.burst.SymmetricTest[PEPSI])",
+        "START testMethod[COKE](com.squareup.burst.SymmetricTest[PEPSI])",
+        "FINISH testMethod[COKE](com.squareup.burst.SymmetricTest[PEPSI])",
+        "START testMethod[RC_COLA](com.squareup.burst.SymmetricTest[PEPSI])",
+        "FINISH testMethod[RC_COLA](com.squareup.burst.SymmetricTest[PEPSI])",
+        "START testMethod[COKE](com.squareup.burst.SymmetricTest[COKE])",
+        "FINISH testMethod[COKE](com.squareup.burst.SymmetricTest[COKE])",
+        "START testMethod[RC_COLA](com.squareup.burst.SymmetricTest[COKE])",
+        "FINISH testMethod[RC_COLA](com.squareup.burst.SymmetricTest[COKE])",
+        "START testMethod[RC_COLA](com.squareup.burst.SymmetricTest[RC_COLA])",
+        "FINISH testMethod[RC_COLA](com.squareup.burst.SymmetricTest[RC_COLA])");
+  }
+
+  @Test public void grayCode() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(GrayCodeTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START testMethod(com.squareup.burst.GrayCodeTest[PEPSI, CHIPS])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[PEPSI, CHIPS])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[PEPSI, NUTS])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[PEPSI, NUTS])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[PEPSI, CANDY])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[PEPSI, CANDY])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[COKE, CANDY])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[COKE, CANDY])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[COKE, NUTS])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[COKE, NUTS])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[COKE, CHIPS])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[COKE, CHIPS])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[RC_COLA, CHIPS])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[RC_COLA, CHIPS])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[RC_COLA, NUTS])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[RC_COLA, NUTS])",
+        "START testMethod(com.squareup.burst.GrayCodeTest[RC_COLA, CANDY])",
+        "FINISH testMethod(com.squareup.burst.GrayCodeTest[RC_COLA, CANDY])");
+  }
+
+  @Test public void methodMajor() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(MethodMajorTest.class);
+    // Descriptions are still grouped by variation.
+    assertThat(runner.getDescription().getChildren().get(0).getDisplayName())
+        .isEqualTo("com.squareup.burst.MethodMajorTest[PEPSI]");
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START drink(com.squareup.burst.MethodMajorTest[PEPSI])",
+        "FINISH drink(com.squareup.burst.MethodMajorTest[PEPSI])",
+        "START drink(com.squareup.burst.MethodMajorTest[COKE])",
+        "FINISH drink(com.squareup.burst.MethodMajorTest[COKE])",
+        "START drink(com.squareup.burst.MethodMajorTest[RC_COLA])",
+        "FINISH drink(com.squareup.burst.MethodMajorTest[RC_COLA])",
+        "START snack[CHIPS](com.squareup.burst.MethodMajorTest[PEPSI])",
+        "FINISH snack[CHIPS](com.squareup.burst.MethodMajorTest[PEPSI])",
+        "START snack[NUTS](com.squareup.burst.MethodMajorTest[PEPSI])",
+        "FINISH snack[NUTS](com.squareup.burst.MethodMajorTest[PEPSI])",
+        "START snack[CANDY](com.squareup.burst.MethodMajorTest[PEPSI])",
+        "FINISH snack[CANDY](com.squareup.burst.MethodMajorTest[PEPSI])",
+        "START snack[CHIPS](com.squareup.burst.MethodMajorTest[COKE])",
+        "FINISH snack[CHIPS](com.squareup.burst.MethodMajorTest[COKE])",
+        "START snack[NUTS](com.squareup.burst.MethodMajorTest[COKE])",
+        "FINISH snack[NUTS](com.squareup.burst.MethodMajorTest[COKE])",
+        "START snack[CANDY](com.squareup.burst.MethodMajorTest[COKE])",
+        "FINISH snack[CANDY](com.squareup.burst.MethodMajorTest[COKE])",
+        "START snack[CHIPS](com.squareup.burst.MethodMajorTest[RC_COLA])",
+        "FINISH snack[CHIPS](com.squareup.burst.MethodMajorTest[RC_COLA])",
+        "START snack[NUTS](com.squareup.burst.MethodMajorTest[RC_COLA])",
+        "FINISH snack[NUTS](com.squareup.burst.MethodMajorTest[RC_COLA])",
+        "START snack[CANDY](com.squareup.burst.MethodMajorTest[RC_COLA])",
+        "FINISH snack[CANDY](com.squareup.burst.MethodMajorTest[RC_COLA])");
+  }
+
+  @Test public void parallel() throws InitializationError {
+    ParallelTest.beforeClassCount.set(0);
+    ParallelTest.running = new CountDownLatch(3);
+    BurstJUnit4 runner = new BurstJUnit4(ParallelTest.class);
+    runner.run(listener.notifier());
+    assertThat(ParallelTest.beforeClassCount.get()).isEqualTo(1);
+    assertThat(listener.journal()).containsOnly(
+        "START testMethod(com.squareup.burst.ParallelTest[PEPSI])",
+        "FINISH testMethod(com.squareup.burst.ParallelTest[PEPSI])",
+        "START testMethod(com.squareup.burst.ParallelTest[COKE])",
+        "FINISH testMethod(com.squareup.burst.ParallelTest[COKE])",
+        "START testMethod(com.squareup.burst.ParallelTest[RC_COLA])",
+        "FINISH testMethod(com.squareup.burst.ParallelTest[RC_COLA])");
+    assertThat(listener.journal()).hasSize(6);
+  }
+
+  @Test public void parallelMethods() throws InitializationError {
+    ParallelMethodsTest.running = new CountDownLatch(3);
+    BurstJUnit4 runner = new BurstJUnit4(ParallelMethodsTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsOnly(
+        "START testMethod[PEPSI](com.squareup.burst.ParallelMethodsTest)",
+        "FINISH testMethod[PEPSI](com.squareup.burst.ParallelMethodsTest)",
+        "START testMethod[COKE](com.squareup.burst.ParallelMethodsTest)",
+        "FINISH testMethod[COKE](com.squareup.burst.ParallelMethodsTest)",
+        "START testMethod[RC_COLA](com.squareup.burst.ParallelMethodsTest)",
+        "FINISH testMethod[RC_COLA](com.squareup.burst.ParallelMethodsTest)");
+    assertThat(listener.journal()).hasSize(6);
+  }
+
+  @Test public void virtualThreads() throws InitializationError {
+    VirtualThreadsTest.maxRunning.set(0);
+    BurstJUnit4 runner = new BurstJUnit4(VirtualThreadsTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).hasSize(18);
+    for (String entry : listener.journal()) {
+      assertThat(entry.startsWith("FAIL")).isFalse();
+    }
+    // Whichever threads run them, no more tests than the parallelism run at once.
+    assertThat(VirtualThreadsTest.maxRunning.get()).isBetween(1, 2);
+  }
+
+  @Test public void adaptive() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(AdaptiveTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).hasSize(18);
+    for (String entry : listener.journal()) {
+      assertThat(entry.startsWith("FAIL")).isFalse();
+    }
+  }
+
+  @Test public void adaptiveMayClimbAboveProcessors() {
+    System.setProperty(BurstOptions.PARALLELISM_PROPERTY, "0");
+    System.setProperty(BurstOptions.ADAPTIVE_PROPERTY, "true");
+    try {
+      int processors = Runtime.getRuntime().availableProcessors();
+      assertThat(BurstOptions.forClass(MethodTest.class).parallelism)
+          .isEqualTo(BurstOptions.ADAPTIVE_HEADROOM * processors);
+      System.clearProperty(BurstOptions.ADAPTIVE_PROPERTY);
+      assertThat(BurstOptions.forClass(MethodTest.class).parallelism).isEqualTo(processors);
+    } finally {
+      System.clearProperty(BurstOptions.PARALLELISM_PROPERTY);
+      System.clearProperty(BurstOptions.ADAPTIVE_PROPERTY);
+    }
+  }
+
+  @Test public void sharedPool() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(SharedTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).hasSize(6);
+    for (String entry : listener.journal()) {
+      assertThat(entry.startsWith("FAIL")).isFalse();
+    }
+    SharedPool pool = SharedPool.get();
+    assertThat(pool.parallelism()).isEqualTo(Runtime.getRuntime().availableProcessors());
+    assertThat(pool.makespanNanos()).isGreaterThan(0);
+    assertThat(pool.utilization()).isGreaterThan(0.0).isLessThanOrEqualTo(1.0);
+  }
+
+  @Test public void uses() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(UsesTest.class);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).hasSize(24);
+    for (String entry : listener.journal()) {
+      assertThat(entry.startsWith("FAIL")).isFalse();
+    }
+    // No resource is used by more tests at once than its capacity.
+    assertThat(UsesTest.maxRunning[UsesTest.Backend.EMBEDDED.ordinal()].get()).isEqualTo(1);
+    assertThat(UsesTest.maxRunning[UsesTest.Backend.DATABASE.ordinal()].get()).isBetween(1, 2);
+  }
+
+  @Test public void variationsShareTestClass() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(MultipleFieldsTest.class);
+    List<Runner> children = ParentRunnerSpy.getFilteredChildren(runner);
+    assertThat(children).hasSize(9);
+    for (Runner child : children) {
+      assertThat(((VariationRunner) child).create().getTestClass())
+          .isSameAs(runner.getTestClass());
+    }
+  }
+
+  @Test public void variationDropsDescriptionToItsRunner() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(MultipleFieldsTest.class);
+    VariationRunner variation =
+        (VariationRunner) ParentRunnerSpy.getFilteredChildren(runner).get(4);
+    Description before = variation.getDescription();
+    BurstRunner burstRunner = variation.create();
+    assertThat(burstRunner.getDescription()).isSameAs(before);
+    // Once the runner has it, the variation only rebuilds an equal one from its index on demand.
+    Description after = variation.getDescription();
+    assertThat(after).isNotSameAs(before).isEqualTo(before);
+    assertThat(after.getChildren()).isEqualTo(before.getChildren());
+  }
+
+  @Test public void orderWithinVariation() {
+    Ordering reversed = new Ordering() {
+      @Override protected List<Description> orderItems(Collection<Description> descriptions) {
+        List<Description> ordered = new ArrayList<>(descriptions);
+        Collections.reverse(ordered);
+        return ordered;
+      }
+    };
+    Request request = Request.aClass(MethodTest.class)
+        .filterWith(Filter.matchMethodDescription(
+            Description.createTestDescription(MethodTest.class, "single")))
+        .orderWith(reversed);
+    request.getRunner().run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START single[RC_COLA](com.squareup.burst.MethodTest)",
+        "FINISH single[RC_COLA](com.squareup.burst.MethodTest)",
+        "START single[COKE](com.squareup.burst.MethodTest)",
+        "FINISH single[COKE](com.squareup.burst.MethodTest)",
+        "START single[PEPSI](com.squareup.burst.MethodTest)",
+        "FINISH single[PEPSI](com.squareup.burst.MethodTest)");
+  }
+
+  @Test public void filterByMethod() throws Exception {
+    BurstJUnit4 runner = new BurstJUnit4(ConstructorAndMethodTest.class);
+    runner.filter(Filter.matchMethodDescription(
+        Description.createTestDescription(ConstructorAndMethodTest.class, "none")));
+    assertThat(runner.getDescription().testCount()).isEqualTo(3);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START none(com.squareup.burst.ConstructorAndMethodTest[PEPSI])",
+        "FINISH none(com.squareup.burst.ConstructorAndMethodTest[PEPSI])",
+        "START none(com.squareup.burst.ConstructorAndMethodTest[COKE])",
+        "FINISH none(com.squareup.burst.ConstructorAndMethodTest[COKE])",
+        "START none(com.squareup.burst.ConstructorAndMethodTest[RC_COLA])",
+        "FINISH none(com.squareup.burst.ConstructorAndMethodTest[RC_COLA])");
+  }
+
+  @Test public void filterConsultsEachMethodOnce() throws Exception {
+    final List<String> consulted = new ArrayList<>();
+    BurstJUnit4 runner = new BurstJUnit4(ConstructorAndMethodTest.class);
+    runner.filter(new Filter() {
+      @Override public boolean shouldRun(Description description) {
+        consulted.add(description.getMethodName());
+        return description.getMethodName().equals("single");
+      }
+
+      @Override public String describe() {
+        return "single";
+      }
+    });
+    assertThat(consulted).containsOnly("none", "single").hasSize(2);
+    // Every variation of the method remains, not just the first of those which are equal.
+    assertThat(runner.getDescription().testCount()).isEqualTo(9);
+  }
+
+  @Test public void filterDropsVariationsWithoutTests() throws Exception {
+    BurstJUnit4 runner = new BurstJUnit4(SampleTest.class);
+    runner.filter(Filter.matchMethodDescription(
+        Description.createTestDescription(SampleTest.class, "none")));
+    assertThat(runner.getDescription().getChildren()).hasSize(1);
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START none(com.squareup.burst.SampleTest[PEPSI, NUTS])",
+        "FINISH none(com.squareup.burst.SampleTest[PEPSI, NUTS])");
+  }
+
+  @Test public void seedPropertyDefersToAnnotation() throws InitializationError {
+    System.setProperty(BurstOptions.SEED_PROPERTY, "7");
+    System.setProperty(BurstOptions.SAMPLE_PROPERTY, "2");
+    try {
+      assertThat(new BurstJUnit4(SampleTest.class).getDescription().getDisplayName())
+          .isEqualTo("com.squareup.burst.SampleTest [sample=5, seed=42]");
+      assertThat(new BurstJUnit4(MethodTest.class).getDescription().getDisplayName())
+          .isEqualTo("com.squareup.burst.MethodTest [sample=2, seed=7]");
+    } finally {
+      System.clearProperty(BurstOptions.SEED_PROPERTY);
+      System.clearProperty(BurstOptions.SAMPLE_PROPERTY);
+    }
+  }
+
+  @Test public void sample() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(SampleTest.class);
+    assertThat(runner.getDescription().getDisplayName())
+        .isEqualTo("com.squareup.burst.SampleTest [sample=5, seed=42]");
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START none(com.squareup.burst.SampleTest[PEPSI, NUTS])",
+        "FINISH none(com.squareup.burst.SampleTest[PEPSI, NUTS])",
+        "START single[TIME](com.squareup.burst.SampleTest[PEPSI, CANDY])",
+        "FINISH single[TIME](com.squareup.burst.SampleTest[PEPSI, CANDY])",
+        "START single[TIME](com.squareup.burst.SampleTest[COKE, CHIPS])",
+        "FINISH single[TIME](com.squareup.burst.SampleTest[COKE, CHIPS])",
+        "START single[COSMO](com.squareup.burst.SampleTest[COKE, NUTS])",
+        "FINISH single[COSMO](com.squareup.burst.SampleTest[COKE, NUTS])",
+        "START single[TIME](com.squareup.burst.SampleTest[RC_COLA, NUTS])",
+        "FINISH single[TIME](com.squareup.burst.SampleTest[RC_COLA, NUTS])");
+  }
+
+  @Test public void allocateSharesBudgetProportionally() {
+    assertThat(BurstJUnit4.allocate(new long[] { 27, 9 }, 5)).containsExactly(4, 1);
+    assertThat(BurstJUnit4.allocate(new long[] { 1, 100, 0, 99 }, 20)).containsExactly(1, 10, 0, 9);
+    assertThat(BurstJUnit4.allocate(new long[] { 3, 4 }, 20)).containsExactly(3, 4);
+    assertThat(BurstJUnit4.allocate(new long[] { 3, 4, 5 }, 2)).containsExactly(1, 1, 0);
+    assertThat(BurstJUnit4.allocate(new long[] { Long.MAX_VALUE, Long.MAX_VALUE }, 10))
+        .containsExactly(5, 5);
+  }
+
+  @Test public void maxVariations() throws InitializationError {
+    System.setProperty(BurstOptions.MAX_VARIATIONS_PROPERTY, "10");
+    try {
+      new BurstJUnit4(MethodTest.class);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("com.squareup.burst.MethodTest would run 13 tests, more than the "
+          + "maximum of 10. Reduce its variations or raise the burst.maxVariations system "
+          + "property.\n"
+          + "  constructor: no dimensions = 1\n"
+          + "  single: Soda (3) = 3, 3 tests\n"
+          + "  none: no dimensions = 1, 1 tests\n"
+          + "  multiple: Soda (3) x Snack (3) = 9, 9 tests");
+    } finally {
+      System.clearProperty(BurstOptions.MAX_VARIATIONS_PROPERTY);
+    }
+  }
+
+  @Test public void select() throws InitializationError {
+    System.setProperty(BurstOptions.SELECT_PROPERTY, "Soda=PEPSI,Snack=NUTS|CANDY");
+    try {
+      BurstJUnit4 runner = new BurstJUnit4(ConstructorMultipleArgumentTest.class);
+      assertThat(runner.getDescription().getChildren()).hasSize(2);
+      runner.run(listener.notifier());
+      assertThat(listener.journal()).containsExactly(
+          "START testMethod(com.squareup.burst.ConstructorMultipleArgumentTest[PEPSI, NUTS])",
+          "FINISH testMethod(com.squareup.burst.ConstructorMultipleArgumentTest[PEPSI, NUTS])",
+          "START testMethod(com.squareup.burst.ConstructorMultipleArgumentTest[PEPSI, CANDY])",
+          "FINISH testMethod(com.squareup.burst.ConstructorMultipleArgumentTest[PEPSI, CANDY])");
+    } finally {
+      System.clearProperty(BurstOptions.SELECT_PROPERTY);
+    }
+  }
+
+  @Test public void selectMethodVariations() throws InitializationError {
+    System.setProperty(BurstOptions.SELECT_PROPERTY, "Soda=COKE,Snack=CHIPS");
+    try {
+      BurstJUnit4 runner = new BurstJUnit4(MethodTest.class);
+      runner.run(listener.notifier());
+      assertThat(listener.journal()).containsExactly(
+          "START single[COKE](com.squareup.burst.MethodTest)",
+          "FINISH single[COKE](com.squareup.burst.MethodTest)",
+          "START none(com.squareup.burst.MethodTest)",
+          "FINISH none(com.squareup.burst.MethodTest)",
+          "START multiple[COKE, CHIPS](com.squareup.burst.MethodTest)",
+          "FINISH multiple[COKE, CHIPS](com.squareup.burst.MethodTest)");
+    } finally {
+      System.clearProperty(BurstOptions.SELECT_PROPERTY);
+    }
+  }
+
+  @Test public void hierarchical() throws InitializationError {
+    BurstJUnit4 runner = new BurstJUnit4(HierarchicalTest.class);
+    Description description = runner.getDescription();
+    assertThat(description.getDisplayName()).isEqualTo("com.squareup.burst.HierarchicalTest");
+    List<Description> sodas = description.getChildren();
+    assertThat(sodas).hasSize(3);
+    assertThat(sodas.get(0).getDisplayName()).isEqualTo("Soda=PEPSI");
+    List<Description> snacks = sodas.get(1).getChildren();
+    assertThat(snacks).hasSize(2);
+    assertThat(snacks.get(1).getDisplayName()).isEqualTo("Food=NUTS");
+    // Nodes of the same value under different parents are still told apart.
+    assertThat(snacks.get(1)).isNotEqualTo(sodas.get(0).getChildren().get(1));
+    assertThat(snacks.get(1).getChildren().get(0).getDisplayName())
+        .isEqualTo("testMethod(com.squareup.burst.HierarchicalTest[COKE, Food=NUTS])");
+    assertThat(description.testCount()).isEqualTo(6);
+
+    runner.run(listener.notifier());
+    assertThat(listener.journal()).containsExactly(
+        "START testMethod(com.squareup.burst.HierarchicalTest[PEPSI, Food=CHIPS])",
+        "FINISH testMethod(com.squareup.burst.HierarchicalTest[PEPSI, Food=CHIPS])",
+        "START testMethod(com.squareup.burst.HierarchicalTest[PEPSI, Food=NUTS])",
+        "FINISH testMethod(com.squareup.burst.HierarchicalTest[PEPSI, Food=NUTS])",
+        "START testMethod(com.squareup.burst.HierarchicalTest[COKE, Food=CHIPS])",
+        "FINISH testMethod(com.squareup.burst.HierarchicalTest[COKE, Food=CHIPS])",
+        "START testMethod(com.squareup.burst.HierarchicalTest[COKE, Food=NUTS])",
+        "FINISH testMethod(com.squareup.burst.HierarchicalTest[COKE, Food=NUTS])",
+        "START testMethod(com.squareup.burst.HierarchicalTest[RC_COLA, Food=CHIPS])",
+        "FINISH testMethod(com.squareup.burst.HierarchicalTest[RC_COLA, Food=CHIPS])",
+        "START testMethod(com.squareup.burst.HierarchicalTest[RC_COLA, Food=NUTS])",
+        "FINISH testMethod(com.squareup.burst.HierarchicalTest[RC_COLA, Food=NUTS])");
+  }
+
+  @Test public void hierarchicalFilter() throws InitializationError, NoTestsRemainException {
+    System.setProperty(BurstOptions.HIERARCHICAL_PROPERTY, "true");
+    try {
+      BurstJUnit4 runner = new BurstJUnit4(MethodTest.class);
+      // Without constructor dimensions, variations stay direct children of the class.
+      assertThat(runner.getDescription().getChildren().get(0).getDisplayName())
+          .isEqualTo("com.squareup.burst.MethodTest");
+
+      runner = new BurstJUnit4(HierarchicalTest.class);
+      runner.filter(Filter.matchMethodDescription(
+          Description.createTestDescription(HierarchicalTest.class, "testMethod")));
+      assertThat(runner.getDescription().testCount()).isEqualTo(6);
+    } finally {
+      System.clearProperty(BurstOptions.HIERARCHICAL_PROPERTY);
+    }
+  }
+
+  @Test public void maxVariationsStopsEnumeratingValidVariations() throws InitializationError {
+    System.setProperty(BurstOptions.MAX_VARIATIONS_PROPERTY, "5");
+    try {
+      new BurstJUnit4(ConstraintTest.class);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("com.squareup.burst.ConstraintTest would run at least 6 tests, more "
+          + "than the maximum of 5. Reduce its variations or raise the burst.maxVariations system "
+          + "property.\n"
+          + "  constructor: Soda (3) = 3\n"
+          + "  unconstrained: no dimensions = 1, 3 tests\n"
+          + "  testMethod: Snack (3) = 3, at least 3 tests");
+    } finally {
+      System.clearProperty(BurstOptions.MAX_VARIATIONS_PROPERTY);
+    }
+  }
 }
@@ -0,0 +1,56 @@
+package com.squareup.burst;
+
+import java.lang.reflect.Method;
+import org.junit.runners.model.FrameworkMethod;
+
+/**
+ * Compares calling a test method through {@link BurstMethod}'s method handle with calling it
+ * through {@link Method#invoke}, as JUnit's {@link FrameworkMethod} does. This is not run as part
+ * of the build. Run its {@code main} with the test classpath, such as
+ * <pre>
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *       com.squareup.burst.BurstMethodBenchmark
+ * </pre>
+ */
+public final class BurstMethodBenchmark {
+  private static final int CALLS = 10000000;
+  private static final int ROUNDS = 10;
+
+  public static class Target {
+    public int test(Soda soda, Snack snack) {
+      return soda.ordinal() + snack.ordinal();
+    }
+  }
+
+  public static void main(String... args) throws Throwable {
+    Method method = Target.class.getMethod("test", Soda.class, Snack.class);
+    Enum<?>[] arguments = { Soda.PEPSI, Snack.NUTS };
+    FrameworkMethod reflective = new FrameworkMethod(method);
+    BurstMethod handle = new BurstMethod(method, BurstMethod.invoker(method),
+        ArgumentNames.of(method), arguments);
+    Target target = new Target();
+
+    // The best of several rounds, so that the first ones warm up the JIT.
+    long reflectiveNanos = Long.MAX_VALUE;
+    long handleNanos = Long.MAX_VALUE;
+    long sink = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < CALLS; i++) {
+        sink += (Integer) reflective.invokeExplosively(target, (Object[]) arguments);
+      }
+      reflectiveNanos = Math.min(reflectiveNanos, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < CALLS; i++) {
+        sink += (Integer) handle.invokeExplosively(target);
+      }
+      handleNanos = Math.min(handleNanos, System.nanoTime() - start);
+    }
+
+    System.out.printf("Method.invoke: %.1f ns/call%n", (double) reflectiveNanos / CALLS);
+    System.out.printf("MethodHandle:  %.1f ns/call%n", (double) handleNanos / CALLS);
+    System.out.printf("(checksum %d)%n", sink);
+  }
+}
@@ -0,0 +1,77 @@
+package com.squareup.burst;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import org.junit.AssumptionViolatedException;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public final class BurstMethodTest {
+  public static class Target {
+    public String echo(Soda soda, Snack snack) {
+      return soda + "+" + snack;
+    }
+
+    public void throwsChecked() throws IOException {
+      throw new IOException("checked");
+    }
+
+    public void assumes() {
+      throw new AssumptionViolatedException("assumed");
+    }
+
+    public static String twice(Soda soda) {
+      return soda + "" + soda;
+    }
+  }
+
+  private static class Hidden {
+    public String echo(Soda soda) {
+      return "hidden " + soda;
+    }
+  }
+
+  @Test public void passesArguments() throws Throwable {
+    BurstMethod method = burstMethod(Target.class.getMethod("echo", Soda.class, Snack.class),
+        Soda.COKE, Snack.NUTS);
+    assertThat(method.invokeExplosively(new Target())).isEqualTo("COKE+NUTS");
+    assertThat(method.getName()).isEqualTo("echo[COKE, NUTS]");
+  }
+
+  @Test public void staticMethodIgnoresTarget() throws Throwable {
+    BurstMethod method = burstMethod(Target.class.getMethod("twice", Soda.class), Soda.PEPSI);
+    assertThat(method.invokeExplosively(new Target())).isEqualTo("PEPSIPEPSI");
+  }
+
+  @Test public void publicMethodOfPrivateClass() throws Throwable {
+    BurstMethod method = burstMethod(Hidden.class.getMethod("echo", Soda.class), Soda.RC_COLA);
+    assertThat(method.invokeExplosively(new Hidden())).isEqualTo("hidden RC_COLA");
+  }
+
+  @Test public void checkedExceptionIsNotWrapped() throws Throwable {
+    BurstMethod method = burstMethod(Target.class.getMethod("throwsChecked"));
+    try {
+      method.invokeExplosively(new Target());
+      fail();
+    } catch (IOException e) {
+      assertThat(e).hasMessage("checked");
+    }
+  }
+
+  @Test public void assumptionFailureIsNotWrapped() throws Throwable {
+    BurstMethod method = burstMethod(Target.class.getMethod("assumes"));
+    try {
+      method.invokeExplosively(new Target());
+      fail();
+    } catch (AssumptionViolatedException e) {
+      assertThat(e).hasMessage("assumed");
+    }
+  }
+
+  private static BurstMethod burstMethod(Method method, Enum<?>... arguments) {
+    return new BurstMethod(method, BurstMethod.invoker(method), ArgumentNames.of(method),
+        arguments);
+  }
+}
@@ -0,0 +1,25 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Constraint;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+public class ConstraintTest {
+  @Burst Soda soda;
+
+  @Constraint public static boolean noColaWithCandy(Soda soda, Snack snack) {
+    return soda != Soda.RC_COLA || snack != Snack.CANDY;
+  }
+
+  @Test public void testMethod(Snack snack) {
+    assertThat(soda == Soda.RC_COLA && snack == Snack.CANDY).isFalse();
+  }
+
+  @Test public void unconstrained() {
+    assertThat(soda).isNotNull();
+  }
+}
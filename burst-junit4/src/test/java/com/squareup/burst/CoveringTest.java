@@ -0,0 +1,21 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Covering;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Covering(strength = 2)
+public class CoveringTest {
+  @Burst Soda soda;
+  @Burst Snack snack;
+
+  @Test public void testMethod(Magazine magazine) {
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+    assertThat(magazine).isNotNull();
+  }
+}
@@ -0,0 +1,20 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.GrayCode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@GrayCode
+public class GrayCodeTest {
+  @Burst Soda soda;
+  @Burst Snack snack;
+
+  @Test public void testMethod() {
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+  }
+}
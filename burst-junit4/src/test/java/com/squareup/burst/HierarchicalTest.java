@@ -0,0 +1,22 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Hierarchical;
+import com.squareup.burst.annotation.Name;
+import com.squareup.burst.annotation.Values;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Hierarchical
+public class HierarchicalTest {
+  @Burst Soda soda;
+  @Burst @Name("Food") @Values(include = { "CHIPS", "NUTS" }) Snack snack;
+
+  @Test public void testMethod() {
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+  }
+}
@@ -0,0 +1,23 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.MethodMajor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@MethodMajor
+public class MethodMajorTest {
+  @Burst Soda soda;
+
+  @Test public void drink() {
+    assertThat(soda).isNotNull();
+  }
+
+  @Test public void snack(Snack snack) {
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+  }
+}
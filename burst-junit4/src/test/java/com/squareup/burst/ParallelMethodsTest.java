@@ -0,0 +1,21 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Parallel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Parallel(parallelism = 3, methods = true)
+public class ParallelMethodsTest {
+  /** Released once every test of the single variation is running at the same time. */
+  static CountDownLatch running = new CountDownLatch(3);
+
+  @Test public void testMethod(Soda soda) throws InterruptedException {
+    running.countDown();
+    assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
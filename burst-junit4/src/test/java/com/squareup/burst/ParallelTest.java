@@ -0,0 +1,38 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Parallel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Parallel(parallelism = 3)
+public class ParallelTest {
+  static final AtomicInteger beforeClassCount = new AtomicInteger();
+  /** Released once every variation is running at the same time. */
+  static CountDownLatch running = new CountDownLatch(3);
+
+  @Burst Soda soda;
+  private Soda before;
+
+  @BeforeClass public static void beforeClass() {
+    beforeClassCount.incrementAndGet();
+  }
+
+  @Before public void before() {
+    before = soda;
+  }
+
+  @Test public void testMethod() throws InterruptedException {
+    assertThat(before).isSameAs(soda);
+    running.countDown();
+    assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -0,0 +1,97 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Uses;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ResourcesTest {
+  @Uses("resources-test-server")
+  public static class Server {
+    @Test public void serves() {
+    }
+
+    @Ignore @Test public void ignored() {
+    }
+  }
+
+  @Test public void waitingDoesNotStarveForkJoinPool() throws Exception {
+    Semaphore busy = new Semaphore(1, true);
+    busy.acquireUninterruptibly();
+    final List<Semaphore> used = Collections.singletonList(busy);
+
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      Future<?> waiting = pool.submit(new Runnable() {
+        @Override public void run() {
+          Resources.acquire(used);
+          Resources.release(used);
+        }
+      });
+      while (!busy.hasQueuedThreads()) {
+        Thread.yield();
+      }
+      // The only worker waits on the resource, so the pool needs another to run this.
+      Future<String> other = pool.submit(new Callable<String>() {
+        @Override public String call() {
+          return "ran";
+        }
+      });
+      assertThat(other.get(10, TimeUnit.SECONDS)).isEqualTo("ran");
+      assertThat(waiting.isDone()).isFalse();
+
+      busy.release();
+      waiting.get(10, TimeUnit.SECONDS);
+      assertThat(busy.availablePermits()).isEqualTo(1);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test public void parallelSchedulerDefersBusyTasks() throws Exception {
+    Semaphore busy = new Semaphore(1, true);
+    busy.acquireUninterruptibly();
+    final AtomicBoolean waitingRan = new AtomicBoolean();
+    final CountDownLatch otherRan = new CountDownLatch(1);
+
+    ParallelScheduler scheduler = new ParallelScheduler(1, "test", false, false, Level.FINE);
+    scheduler.schedule(new Resources.Task(Collections.singletonList(busy)) {
+      @Override void runHolding() {
+        waitingRan.set(true);
+      }
+    });
+    // The only thread isn't waiting on the resource, so it is free to run this.
+    scheduler.schedule(new Runnable() {
+      @Override public void run() {
+        otherRan.countDown();
+      }
+    });
+    assertThat(otherRan.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(waitingRan.get()).isFalse();
+
+    busy.release();
+    scheduler.finished();
+    assertThat(waitingRan.get()).isTrue();
+    assertThat(busy.availablePermits()).isEqualTo(1);
+  }
+
+  @Test public void ignoredTestsUseNoResources() throws NoSuchMethodException {
+    FrameworkMethod serves = new FrameworkMethod(Server.class.getMethod("serves"));
+    FrameworkMethod ignored = new FrameworkMethod(Server.class.getMethod("ignored"));
+    Enum<?>[] none = new Enum<?>[0];
+    assertThat(Resources.of(Server.class, Collections.singletonList(serves), none)).hasSize(1);
+    assertThat(Resources.of(Server.class, Collections.singletonList(ignored), none)).isEmpty();
+  }
+}
@@ -0,0 +1,26 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Sample;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Sample(max = 5, seed = 42)
+public class SampleTest {
+  @Burst Soda soda;
+  @Burst Snack snack;
+
+  @Test public void none() {
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+  }
+
+  @Test public void single(Magazine magazine) {
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+    assertThat(magazine).isNotNull();
+  }
+}
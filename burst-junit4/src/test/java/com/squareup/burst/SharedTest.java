@@ -0,0 +1,19 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Parallel;
+import java.util.concurrent.ForkJoinWorkerThread;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Parallel(shared = true)
+public class SharedTest {
+  @Burst Soda soda;
+
+  @Test public void testMethod() {
+    assertThat(Thread.currentThread()).isInstanceOf(ForkJoinWorkerThread.class);
+  }
+}
@@ -0,0 +1,17 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Symmetric;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+public class SymmetricTest {
+  @Burst @Symmetric Soda first;
+
+  @Test public void testMethod(@Symmetric Soda second) {
+    assertThat(first.ordinal()).isLessThanOrEqualTo(second.ordinal());
+  }
+}
@@ -0,0 +1,57 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Parallel;
+import com.squareup.burst.annotation.Uses;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(BurstJUnit4.class)
+@Parallel(parallelism = 6, methods = true)
+public class UsesTest {
+  enum Backend {
+    @Uses("uses-test-server") EMBEDDED,
+    @Uses(value = "uses-test-database", capacity = 2) DATABASE,
+    IN_MEMORY
+  }
+
+  static final AtomicInteger[] running = {
+    new AtomicInteger(), new AtomicInteger(), new AtomicInteger()
+  };
+  static final AtomicInteger[] maxRunning = {
+    new AtomicInteger(), new AtomicInteger(), new AtomicInteger()
+  };
+
+  @Burst Backend backend;
+
+  @Test public void first() throws InterruptedException {
+    use();
+  }
+
+  @Test public void second() throws InterruptedException {
+    use();
+  }
+
+  @Test public void third() throws InterruptedException {
+    use();
+  }
+
+  @Test public void fourth() throws InterruptedException {
+    use();
+  }
+
+  private void use() throws InterruptedException {
+    AtomicInteger count = running[backend.ordinal()];
+    AtomicInteger max = maxRunning[backend.ordinal()];
+    int now = count.incrementAndGet();
+    while (true) {
+      int seen = max.get();
+      if (now <= seen || max.compareAndSet(seen, now)) {
+        break;
+      }
+    }
+    Thread.sleep(20);
+    count.decrementAndGet();
+  }
+}
@@ -0,0 +1,18 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Values;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+public class ValuesTest {
+  @Burst @Values(exclude = "RC_COLA") Soda soda;
+
+  @Test public void testMethod(@Values(include = "NUTS") Snack snack) {
+    assertThat(soda).isNotEqualTo(Soda.RC_COLA);
+    assertThat(snack).isEqualTo(Snack.NUTS);
+  }
+}
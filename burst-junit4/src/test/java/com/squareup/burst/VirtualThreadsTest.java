@@ -0,0 +1,32 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Parallel;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(BurstJUnit4.class)
+@Parallel(parallelism = 2, virtualThreads = true)
+public class VirtualThreadsTest {
+  static final AtomicInteger running = new AtomicInteger();
+  static final AtomicInteger maxRunning = new AtomicInteger();
+
+  @Burst Soda soda;
+
+  @Test public void testMethod(Snack snack) throws InterruptedException {
+    int now = running.incrementAndGet();
+    while (true) {
+      int max = maxRunning.get();
+      if (now <= max || maxRunning.compareAndSet(max, now)) {
+        break;
+      }
+    }
+    Thread.sleep(20);
+    running.decrementAndGet();
+    assertThat(soda).isNotNull();
+    assertThat(snack).isNotNull();
+  }
+}
@@ -0,0 +1,87 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Name;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * Names variations of a list of enum arguments as {@link Burst#friendlyName} does, from the name of
+ * each value of each argument computed once up front. Naming a variation then only joins those
+ * names, rather than scanning annotations and formatting values again.
+ */
+final class ArgumentNames {
+  /** The name of each argument's values, by ordinal, or null if the argument is not an enum. */
+  private final String[][] valueNames;
+  /** The "name=" that each argument's values are prefixed with, or an empty string. */
+  private final String[] prefixes;
+
+  ArgumentNames(Class<?>[] types, Annotation[][] annotations) {
+    checkNotNull(types, "types");
+    checkNotNull(annotations, "annotations");
+    valueNames = new String[types.length][];
+    prefixes = new String[types.length];
+    for (int i = 0; i < types.length; i++) {
+      String prefix = "";
+      if (annotations.length > i) {
+        for (Annotation annotation : annotations[i]) {
+          if (annotation instanceof Name) {
+            prefix = ((Name) annotation).value() + '=';
+            break;
+          }
+        }
+      }
+      prefixes[i] = prefix;
+      if (types[i].isEnum()) {
+        Enum<?>[] constants = Metadata.enumConstants(types[i]);
+        valueNames[i] = new String[constants.length];
+        for (Enum<?> constant : constants) {
+          valueNames[i][constant.ordinal()] = prefix + constant;
+        }
+      }
+    }
+  }
+
+  static ArgumentNames of(Method method) {
+    return new ArgumentNames(method.getParameterTypes(), Metadata.parameterAnnotations(method));
+  }
+
+  /** Returns {@code name}, followed by the names of {@code arguments} in brackets if any. */
+  String name(String name, Enum<?>[] arguments) {
+    if (arguments.length == 0) {
+      return name;
+    }
+    StringBuilder builder = new StringBuilder(name.length() + 16 * arguments.length);
+    builder.append(name).append('[');
+    for (int i = 0; i < arguments.length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(valueName(i, arguments[i]));
+    }
+    return builder.append(']').toString();
+  }
+
+  /**
+   * Returns the name of {@code value} as argument {@code i}, prefixed by the argument's
+   * {@link Name} or else its enum's simple name, such as {@code Soda=PEPSI}.
+   */
+  String label(int i, Enum<?> value) {
+    if (i < prefixes.length && !prefixes[i].isEmpty()) {
+      return prefixes[i] + value;
+    }
+    return value.getDeclaringClass().getSimpleName() + '=' + value;
+  }
+
+  private String valueName(int i, Enum<?> value) {
+    if (i < valueNames.length && valueNames[i] != null) {
+      return valueNames[i][value.ordinal()];
+    }
+    String prefix = "";
+    if (i < prefixes.length) {
+      prefix = prefixes[i];
+    }
+    return prefix + value;
+  }
+}
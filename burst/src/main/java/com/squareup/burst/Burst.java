@@ -1,9 +1,13 @@
 package com.squareup.burst;
 
 import com.squareup.burst.annotation.Name;
+import com.squareup.burst.annotation.Values;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static com.squareup.burst.Util.checkNotNull;
 
@@ -12,27 +16,53 @@ import static com.squareup.burst.Util.checkNotNull;
  * constructors and methods.
  */
 public final class Burst {
-  private static final Enum<?>[][] NONE = new Enum<?>[1][0];
-
   /**
    * Explode a list of argument values for invoking the specified constructor with all combinations
-   * of its parameters.
+   * of its parameters. Only one ordering of the values of
+   * {@link com.squareup.burst.annotation.Symmetric} parameters is included, and combinations which
+   * a {@link com.squareup.burst.annotation.Constraint} method of the constructor's class rejects
+   * are not. A constraint which also reads test method parameters can't be checked here, so it is
+   * ignored.
    */
   public static Enum<?>[][] explodeArguments(TestConstructor constructor) {
+    return explode(variations(constructor), constructor.getArgumentAnnotations(),
+        Constraints.forClass(constructor.getDeclaringClass()));
+  }
+
+  /**
+   * Explode a list of argument values for invoking the specified method with all combinations of
+   * its parameters. Only one ordering of the values of
+   * {@link com.squareup.burst.annotation.Symmetric} parameters is included, and combinations which
+   * a {@link com.squareup.burst.annotation.Constraint} method of the method's class rejects are
+   * not. A constraint which also reads constructor parameters or fields can't be checked here, so
+   * it is ignored.
+   */
+  public static Enum<?>[][] explodeArguments(Method method) {
+    return explode(variations(method), Metadata.parameterAnnotations(method),
+        Constraints.forClass(method.getDeclaringClass()));
+  }
+
+  /**
+   * The space of all combinations of argument values for invoking the specified constructor. Unlike
+   * {@link #explodeArguments(TestConstructor)}, variations are only decoded when requested, and
+   * every ordering of symmetric values and every constrained combination is included.
+   */
+  public static VariationSpace variations(TestConstructor constructor) {
     checkNotNull(constructor, "constructor");
 
-    return explodeParameters(constructor.getVariationTypes(),
+    return explodeParameters(constructor.getVariationTypes(), constructor.getArgumentAnnotations(),
         constructor.getName() + " constructor");
   }
 
   /**
-   * Explode a list of argument values for invoking the specified method with all combinations of
-   * its parameters.
+   * The space of all combinations of argument values for invoking the specified method. Unlike
+   * {@link #explodeArguments(Method)}, variations are only decoded when requested, and every
+   * ordering of symmetric values and every constrained combination is included.
    */
-  public static Enum<?>[][] explodeArguments(Method method) {
+  public static VariationSpace variations(Method method) {
     checkNotNull(method, "method");
 
-    return explodeParameters(method.getParameterTypes(),
+    return explodeParameters(method.getParameterTypes(), Metadata.parameterAnnotations(method),
         method.getDeclaringClass().getName() + '.' + method.getName() + " method");
   }
 
@@ -96,13 +126,22 @@ public final class Burst {
     return builder.toString();
   }
 
-  private static Enum<?>[][] explodeParameters(Class<?>[] parameterTypes, String name) {
-    int parameterCount = parameterTypes.length;
-    if (parameterCount == 0) {
-      return NONE;
+  private static Enum<?>[][] explode(VariationSpace space, Annotation[][] parameterAnnotations,
+      Constraints constraints) {
+    long[] indices = constraints.filter(space, parameterAnnotations);
+    if (indices == null) {
+      return space.toArray();
     }
+    Enum<?>[][] arguments = new Enum<?>[indices.length][];
+    for (int i = 0; i < indices.length; i++) {
+      arguments[i] = space.get(indices[i]);
+    }
+    return arguments;
+  }
 
-    int count = 1; // Total variation count.
+  private static VariationSpace explodeParameters(Class<?>[] parameterTypes,
+      Annotation[][] parameterAnnotations, String name) {
+    int parameterCount = parameterTypes.length;
     Enum<?>[][] valuesList = new Enum<?>[parameterCount][];
 
     for (int i = 0; i < parameterCount; i++) {
@@ -118,43 +157,51 @@ public final class Burst {
       //noinspection unchecked
       Class<? extends Enum<?>> enumType = (Class<? extends Enum<?>>) parameterType;
 
-      Enum<?>[] values = enumType.getEnumConstants();
-      valuesList[i] = values;
-      count *= values.length;
+      valuesList[i] = Metadata.enumConstants(enumType);
+      for (Annotation annotation : parameterAnnotations[i]) {
+        if (annotation instanceof Values) {
+          valuesList[i] =
+              subset(enumType, valuesList[i], (Values) annotation, name + " parameter #" + (i + 1));
+        }
+      }
     }
-    return explode(count, valuesList);
+    return new VariationSpace(parameterTypes, valuesList);
   }
 
-  private static Enum<?>[][] explode(int count, Enum<?>[][] valuesList) {
-    // The number of times to replay iterating over individual enum values.
-    int replays = 1;
-    // The number of times to repeat an enum value.
-    int adjacent = count;
-
-    Enum<?>[][] arguments = new Enum<?>[count][valuesList.length];
-    for (int valuesIndex = 0; valuesIndex < valuesList.length; valuesIndex++) {
-      Enum<?>[] values = valuesList[valuesIndex];
-
-      // Gap between replays is the previous number of adjacent values.
-      int replayGap = adjacent;
-      // The number of adjacent is divided among the number of current values.
-      adjacent /= values.length;
-
-      for (int replay = 0; replay < replays; replay++) {
-        int replayOffset = replay * replayGap;
-        for (int valueIndex = 0; valueIndex < values.length; valueIndex++) {
-          int valueOffset = valueIndex * adjacent;
-          for (int i = 0; i < adjacent; i++) {
-            arguments[replayOffset + valueOffset + i][valuesIndex] = values[valueIndex];
-          }
+  /** Returns the constants of {@code values} which {@code subset} includes, in declared order. */
+  private static Enum<?>[] subset(Class<?> enumType, Enum<?>[] values, Values subset,
+      String name) {
+    List<String> include = Arrays.asList(subset.include());
+    List<String> exclude = Arrays.asList(subset.exclude());
+    List<String> names = new ArrayList<>();
+    for (Enum<?> value : values) {
+      names.add(value.name());
+    }
+    for (List<String> list : Arrays.asList(include, exclude)) {
+      for (String valueName : list) {
+        if (!names.contains(valueName)) {
+          throw new IllegalStateException(name
+              + " has no value named "
+              + valueName
+              + ". ("
+              + enumType.getName()
+              + ')');
         }
       }
-
-      // Increase the iteration replays by the number of values in the current enum.
-      replays *= values.length;
     }
 
-    return arguments;
+    List<Enum<?>> result = new ArrayList<>();
+    for (Enum<?> value : values) {
+      if ((include.isEmpty() || include.contains(value.name()))
+          && !exclude.contains(value.name())) {
+        result.add(value);
+      }
+    }
+    if (result.isEmpty()) {
+      throw new IllegalStateException(name + " excludes every value. ("
+          + enumType.getName() + ')');
+    }
+    return result.toArray(new Enum<?>[result.size()]);
   }
 
   private Burst() {
@@ -18,6 +18,11 @@ final class BurstableConstructor {
    * @throws IllegalStateException if there are multiple parameterized constructors
    */
   public static TestConstructor findSingle(Class<?> cls) {
+    return Metadata.constructor(cls);
+  }
+
+  /** Like {@link #findSingle(Class)}, but finds the constructor anew. */
+  static TestConstructor findSingleUncached(Class<?> cls) {
     final TestConstructor[] constructors = findAll(cls);
 
     if (constructors.length == 0) {
@@ -40,7 +45,7 @@ final class BurstableConstructor {
    */
   private static TestConstructor[] findAll(Class<?> cls) {
     final Constructor<?>[] constructors = cls.getConstructors();
-    final Field[] fields = getBurstableFields(cls);
+    final Field[] fields = Metadata.burstableFields(cls);
     final List<TestConstructor> filteredConstructors = new ArrayList<>();
 
     for (Constructor<?> constructor : constructors) {
@@ -62,7 +67,7 @@ final class BurstableConstructor {
    * Validates that the field is non-static and non-final, but doesn't check type (types are
    * validated by static methods in {@link com.squareup.burst.Burst}).
    */
-  private static Field[] getBurstableFields(Class<?> cls) {
+  static Field[] getBurstableFields(Class<?> cls) {
     final List<Field> fields = new ArrayList<>();
 
     for (Field field : getAllFields(cls)) {
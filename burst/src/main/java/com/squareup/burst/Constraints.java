@@ -0,0 +1,382 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Constraint;
+import com.squareup.burst.annotation.Name;
+import com.squareup.burst.annotation.Symmetric;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * The {@link Constraint} methods of a test class, and the ordering of {@link Symmetric} dimensions.
+ * Invalid variations are pruned while walking a {@link VariationSpace}: a constraint is checked as
+ * soon as the dimensions it reads have values, so a rejected prefix skips every variation that
+ * shares it. Covering arrays and samples instead check the variations they pick one by one with a
+ * {@link Validator}, so they never enumerate the valid variations.
+ */
+final class Constraints {
+  /** Enforces only the ordering of symmetric dimensions. */
+  static final Constraints NONE = new Constraints(new Method[0]);
+
+  private final Method[] methods;
+
+  private Constraints(Method[] methods) {
+    this.methods = methods;
+  }
+
+  /**
+   * Finds the constraint methods of {@code cls} and its superclasses.
+   *
+   * @throws IllegalStateException If a constraint method is not static, does not return a boolean
+   * or has a parameter which is not an enum.
+   */
+  static Constraints forClass(Class<?> cls) {
+    checkNotNull(cls, "cls");
+
+    List<Method> methods = new ArrayList<>();
+    for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Method method : c.getDeclaredMethods()) {
+        if (!method.isAnnotationPresent(Constraint.class)) {
+          continue;
+        }
+        String name = c.getName() + '.' + method.getName();
+        if (!Modifier.isStatic(method.getModifiers())) {
+          throw new IllegalStateException("Constraint method must be static: " + name);
+        }
+        if (method.getReturnType() != boolean.class) {
+          throw new IllegalStateException("Constraint method must return boolean: " + name);
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 0) {
+          throw new IllegalStateException("Constraint method must have parameters: " + name);
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+          if (!parameterTypes[i].isEnum()) {
+            throw new IllegalStateException(name
+                + " constraint parameter #"
+                + (i + 1)
+                + " type is not an enum. ("
+                + parameterTypes[i].getName()
+                + ')');
+          }
+        }
+        method.setAccessible(true);
+        methods.add(method);
+      }
+    }
+    if (methods.isEmpty()) {
+      return NONE;
+    }
+    return new Constraints(methods.toArray(new Method[methods.size()]));
+  }
+
+  boolean isEmpty() {
+    return methods.length == 0;
+  }
+
+  /**
+   * Returns the indices, in ascending order, of the variations of {@code space} which satisfy every
+   * constraint that applies to it, and whose symmetric dimensions are in declared order.
+   *
+   * @param dimensionAnnotations the annotations of each dimension, used to match {@link Name}s and
+   * find {@link Symmetric} dimensions.
+   * @return null if no constraint applies and no dimension is symmetric, so that every variation is
+   * valid.
+   * @throws IllegalStateException If a constraint parameter matches several dimensions.
+   */
+  long[] filter(VariationSpace space, Annotation[][] dimensionAnnotations) {
+    return filter(space, dimensionAnnotations, Long.MAX_VALUE);
+  }
+
+  /**
+   * Like {@link #filter(VariationSpace, Annotation[][])}, but stops walking the space once more
+   * than {@code max} valid variations are found. The result then holds the first {@code max + 1}
+   * of them, which is enough to tell that there are too many without enumerating them all.
+   */
+  long[] filter(VariationSpace space, Annotation[][] dimensionAnnotations, long max) {
+    Validator validator = bind(space, dimensionAnnotations);
+    if (validator == null) {
+      return null;
+    }
+    return validator.filter(max);
+  }
+
+  /**
+   * Binds these constraints, and the ordering of symmetric dimensions, to the dimensions of
+   * {@code space}, so that single variations can be checked without walking the space.
+   *
+   * @param dimensionAnnotations the annotations of each dimension, used to match {@link Name}s and
+   * find {@link Symmetric} dimensions.
+   * @return null if no constraint applies and no dimension is symmetric, so that every variation is
+   * valid.
+   * @throws IllegalStateException If a constraint parameter matches several dimensions.
+   */
+  Validator bind(VariationSpace space, Annotation[][] dimensionAnnotations) {
+    checkNotNull(space, "space");
+    checkNotNull(dimensionAnnotations, "dimensionAnnotations");
+
+    // Check each constraint at the deepest dimension it reads, once all of them have values.
+    int dimensions = space.dimensions();
+    List<List<Binding>> bindingsByDepth = new ArrayList<>(dimensions);
+    for (int i = 0; i < dimensions; i++) {
+      bindingsByDepth.add(new ArrayList<Binding>());
+    }
+    int[] previousSymmetric = new int[dimensions];
+    boolean[] repeatSymmetric = new boolean[dimensions];
+    boolean applies = findSymmetric(space, dimensionAnnotations, previousSymmetric,
+        repeatSymmetric);
+    for (Method method : methods) {
+      int[] parameterDimensions = bind(method, space, dimensionAnnotations);
+      if (parameterDimensions != null) {
+        int depth = 0;
+        for (int dimension : parameterDimensions) {
+          depth = Math.max(depth, dimension);
+        }
+        bindingsByDepth.get(depth).add(new Binding(method, parameterDimensions));
+        applies = true;
+      }
+    }
+    if (!applies) {
+      return null;
+    }
+    return new Validator(space, bindingsByDepth, previousSymmetric, repeatSymmetric);
+  }
+
+  /**
+   * Returns the dimension of {@code space} that each parameter of {@code method} stands for, or
+   * null if {@code space} lacks one of them.
+   */
+  private static int[] bind(Method method, VariationSpace space,
+      Annotation[][] dimensionAnnotations) {
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Annotation[][] parameterAnnotations = Metadata.parameterAnnotations(method);
+    int[] parameterDimensions = new int[parameterTypes.length];
+    for (int p = 0; p < parameterTypes.length; p++) {
+      String name = name(parameterAnnotations[p]);
+      int match = -1;
+      for (int i = 0; i < space.dimensions(); i++) {
+        if (space.type(i) != parameterTypes[p]
+            || (name != null && !name.equals(name(dimensionAnnotations[i])))) {
+          continue;
+        }
+        if (match != -1) {
+          throw new IllegalStateException(method.getDeclaringClass().getName()
+              + '.'
+              + method.getName()
+              + " constraint parameter #"
+              + (p + 1)
+              + " matches several "
+              + parameterTypes[p].getSimpleName()
+              + " values. Annotate it and them with @Name to tell them apart.");
+        }
+        match = i;
+      }
+      if (match == -1) {
+        return null;
+      }
+      parameterDimensions[p] = match;
+    }
+    return parameterDimensions;
+  }
+
+  /**
+   * Links each symmetric dimension to the previous one of the same type, if any, and records
+   * whether the values of those types may repeat.
+   *
+   * @param previous receives the previous symmetric dimension of each dimension's type, or -1.
+   * @param repeat receives whether each dimension's value may equal the previous one's.
+   * @return whether any dimension follows another symmetric dimension.
+   */
+  private static boolean findSymmetric(VariationSpace space, Annotation[][] dimensionAnnotations,
+      int[] previous, boolean[] repeat) {
+    boolean found = false;
+    Arrays.fill(previous, -1);
+    for (int i = 0; i < previous.length; i++) {
+      Symmetric symmetric = symmetric(dimensionAnnotations[i]);
+      if (symmetric == null) {
+        continue;
+      }
+      repeat[i] = symmetric.repeat();
+      for (int j = i - 1; j >= 0; j--) {
+        if (space.type(j) == space.type(i) && symmetric(dimensionAnnotations[j]) != null) {
+          previous[i] = j;
+          found = true;
+          break;
+        }
+      }
+    }
+    // Values repeat only if every symmetric dimension of their type allows it.
+    for (int i = previous.length - 1; i >= 0; i--) {
+      if (previous[i] != -1) {
+        repeat[previous[i]] &= repeat[i];
+      }
+    }
+    for (int i = 0; i < previous.length; i++) {
+      if (previous[i] != -1) {
+        repeat[i] = repeat[previous[i]];
+      }
+    }
+    return found;
+  }
+
+  private static Symmetric symmetric(Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (annotation instanceof Symmetric) {
+        return (Symmetric) annotation;
+      }
+    }
+    return null;
+  }
+
+  private static String name(Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (annotation instanceof Name) {
+        return ((Name) annotation).value();
+      }
+    }
+    return null;
+  }
+
+  /** A constraint method and the dimension that each of its parameters stands for. */
+  private static final class Binding {
+    final Method method;
+    final int[] parameterDimensions;
+
+    Binding(Method method, int[] parameterDimensions) {
+      this.method = method;
+      this.parameterDimensions = parameterDimensions;
+    }
+
+    boolean accepts(Enum<?>[] arguments) {
+      Object[] parameters = new Object[parameterDimensions.length];
+      for (int p = 0; p < parameters.length; p++) {
+        parameters[p] = arguments[parameterDimensions[p]];
+      }
+      try {
+        return (Boolean) method.invoke(null, parameters);
+      } catch (IllegalAccessException e) {
+        throw new AssertionError(e);
+      } catch (InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+  }
+
+  /** The constraints which apply to a space, bound to its dimensions. */
+  static final class Validator {
+    final VariationSpace space;
+    private final List<List<Binding>> bindingsByDepth;
+    private final int[] previousSymmetric;
+    private final boolean[] repeatSymmetric;
+
+    Validator(VariationSpace space, List<List<Binding>> bindingsByDepth, int[] previousSymmetric,
+        boolean[] repeatSymmetric) {
+      this.space = space;
+      this.bindingsByDepth = bindingsByDepth;
+      this.previousSymmetric = previousSymmetric;
+      this.repeatSymmetric = repeatSymmetric;
+    }
+
+    /**
+     * Returns the indices, in ascending order, of the valid variations of the space, stopping once
+     * more than {@code max} are found.
+     */
+    long[] filter(long max) {
+      Walk walk = new Walk(this, max);
+      walk.visit(0, 0);
+      return Arrays.copyOf(walk.indices, walk.count);
+    }
+
+    /** Whether the variation at {@code index} satisfies every constraint. */
+    boolean accepts(long index) {
+      return accepts(space.get(index));
+    }
+
+    /** Whether a variation with {@code arguments} satisfies every constraint. */
+    boolean accepts(Enum<?>[] arguments) {
+      for (int depth = 0; depth < arguments.length; depth++) {
+        if (!accepts(depth, arguments)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Whether the constraints checked once dimension {@code depth} has a value are satisfied. */
+    boolean accepts(int depth, Enum<?>[] arguments) {
+      int previous = previousSymmetric[depth];
+      if (previous != -1) {
+        int order = arguments[depth].ordinal() - arguments[previous].ordinal();
+        if (order < 0 || (order == 0 && !repeatSymmetric[depth])) {
+          return false;
+        }
+      }
+      for (Binding binding : bindingsByDepth.get(depth)) {
+        if (!binding.accepts(arguments)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** A depth-first walk of a space which collects the indices of its valid variations. */
+  private static final class Walk {
+    private final Validator validator;
+    private final VariationSpace space;
+    private final long[] strides;
+    private final Enum<?>[] arguments;
+    private final long max;
+    long[] indices = new long[16];
+    int count;
+
+    Walk(Validator validator, long max) {
+      this.validator = validator;
+      this.space = validator.space;
+      this.max = max;
+      this.arguments = new Enum<?>[space.dimensions()];
+      this.strides = new long[space.dimensions()];
+      long stride = 1;
+      for (int i = strides.length - 1; i >= 0; i--) {
+        strides[i] = stride;
+        stride *= space.valueCount(i);
+      }
+    }
+
+    void visit(int depth, long index) {
+      if (depth == arguments.length) {
+        add(index);
+        return;
+      }
+      for (int v = 0; v < space.valueCount(depth) && count <= max; v++) {
+        arguments[depth] = space.value(depth, v);
+        if (validator.accepts(depth, arguments)) {
+          visit(depth + 1, index + v * strides[depth]);
+        }
+      }
+    }
+
+    private void add(long index) {
+      if (count == indices.length) {
+        if (count == Integer.MAX_VALUE - 8) {
+          throw new IllegalStateException("Too many valid variations. (" + space + ')');
+        }
+        indices = Arrays.copyOf(indices, (int) Math.min(Integer.MAX_VALUE - 8, count * 2L));
+      }
+      indices[count++] = index;
+    }
+  }
+}
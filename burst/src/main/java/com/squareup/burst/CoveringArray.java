@@ -0,0 +1,262 @@
+package com.squareup.burst;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Generates t-wise covering arrays: sets of rows in which every combination of values of every
+ * {@code t} dimensions appears at least once. This uses the IPOG strategy, which starts with all
+ * combinations of the first {@code t} dimensions and then adds one dimension at a time, first
+ * extending the existing rows (horizontal growth) and then adding rows for whatever combinations
+ * remain uncovered (vertical growth). The result is not minimal, but grows only logarithmically
+ * with the number of dimensions.
+ */
+final class CoveringArray {
+  /** Marks a value which is not yet constrained by any covered combination. */
+  private static final int UNSET = -1;
+
+  /**
+   * Returns rows of value indices which cover every {@code strength}-way combination of values of
+   * dimensions with the given {@code radices}.
+   */
+  static List<int[]> generate(int[] radices, int strength) {
+    if (strength < 1) {
+      throw new IllegalArgumentException("strength < 1: " + strength);
+    }
+    int dimensions = radices.length;
+    if (strength > dimensions) {
+      strength = dimensions;
+    }
+
+    List<int[]> rows = new ArrayList<>();
+    for (int radix : radices) {
+      if (radix == 0) {
+        return rows; // A dimension without values has no combinations to cover.
+      }
+    }
+    seed(rows, radices, strength, new int[dimensions], 0);
+
+    for (int dimension = strength; dimension < dimensions; dimension++) {
+      List<int[]> subsets = subsets(dimension, strength - 1);
+      BitSet[] uncovered = new BitSet[subsets.size()];
+      for (int s = 0; s < subsets.size(); s++) {
+        int combinations = combinations(radices, subsets.get(s)) * radices[dimension];
+        uncovered[s] = new BitSet(combinations);
+        uncovered[s].set(0, combinations);
+      }
+
+      // Horizontal growth: give each existing row the value which covers the most combinations.
+      for (int[] row : rows) {
+        int bestValue = 0;
+        int bestGain = -1;
+        for (int value = 0; value < radices[dimension]; value++) {
+          row[dimension] = value;
+          int gain = 0;
+          for (int s = 0; s < subsets.size(); s++) {
+            int tuple = tuple(row, radices, subsets.get(s), dimension);
+            if (tuple != UNSET && uncovered[s].get(tuple)) {
+              gain++;
+            }
+          }
+          if (gain > bestGain) {
+            bestGain = gain;
+            bestValue = value;
+          }
+        }
+        row[dimension] = bestValue;
+        for (int s = 0; s < subsets.size(); s++) {
+          int tuple = tuple(row, radices, subsets.get(s), dimension);
+          if (tuple != UNSET) {
+            uncovered[s].clear(tuple);
+          }
+        }
+      }
+
+      // Vertical growth: place each remaining combination in a row whose values are compatible
+      // (rows added by earlier vertical growth may still have unset values), or in a new row.
+      for (int s = 0; s < subsets.size(); s++) {
+        int[] subset = subsets.get(s);
+        for (int tuple = uncovered[s].nextSetBit(0); tuple >= 0;
+            tuple = uncovered[s].nextSetBit(tuple + 1)) {
+          int[] values = untuple(tuple, radices, subset, dimension);
+          int[] target = null;
+          for (int r = 0; r < rows.size() && target == null; r++) {
+            if (compatible(rows.get(r), subset, dimension, values)) {
+              target = rows.get(r);
+            }
+          }
+          if (target == null) {
+            target = new int[dimensions];
+            Arrays.fill(target, UNSET);
+            rows.add(target);
+          }
+          for (int i = 0; i < subset.length; i++) {
+            target[subset[i]] = values[i];
+          }
+          target[dimension] = values[subset.length];
+        }
+      }
+    }
+
+    // Values nobody cares about may take any value.
+    for (int[] row : rows) {
+      for (int i = 0; i < dimensions; i++) {
+        if (row[i] == UNSET) {
+          row[i] = 0;
+        }
+      }
+    }
+    return rows;
+  }
+
+  /** Adds every combination of values of the first {@code strength} dimensions. */
+  private static void seed(List<int[]> rows, int[] radices, int strength, int[] row, int position) {
+    if (position == strength) {
+      rows.add(row.clone());
+      return;
+    }
+    for (int value = 0; value < radices[position]; value++) {
+      row[position] = value;
+      seed(rows, radices, strength, row, position + 1);
+    }
+  }
+
+  /** Returns every {@code size}-element subset of {@code [0, count)} in lexicographic order. */
+  private static List<int[]> subsets(int count, int size) {
+    List<int[]> subsets = new ArrayList<>();
+    int[] subset = new int[size];
+    for (int i = 0; i < size; i++) {
+      subset[i] = i;
+    }
+    while (true) {
+      subsets.add(subset.clone());
+      int i = size - 1;
+      while (i >= 0 && subset[i] == count - size + i) {
+        i--;
+      }
+      if (i < 0) {
+        return subsets;
+      }
+      subset[i]++;
+      for (int j = i + 1; j < size; j++) {
+        subset[j] = subset[j - 1] + 1;
+      }
+    }
+  }
+
+  private static int combinations(int[] radices, int[] subset) {
+    int combinations = 1;
+    for (int dimension : subset) {
+      combinations *= radices[dimension];
+    }
+    return combinations;
+  }
+
+  /**
+   * Encodes the values of {@code row} at the {@code subset} dimensions followed by
+   * {@code dimension}, or returns {@link #UNSET} if any of them is unset.
+   */
+  private static int tuple(int[] row, int[] radices, int[] subset, int dimension) {
+    int tuple = 0;
+    for (int i : subset) {
+      if (row[i] == UNSET) {
+        return UNSET;
+      }
+      tuple = tuple * radices[i] + row[i];
+    }
+    return tuple * radices[dimension] + row[dimension];
+  }
+
+  /** The inverse of {@link #tuple}. */
+  private static int[] untuple(int tuple, int[] radices, int[] subset, int dimension) {
+    int[] values = new int[subset.length + 1];
+    values[subset.length] = tuple % radices[dimension];
+    tuple /= radices[dimension];
+    for (int i = subset.length - 1; i >= 0; i--) {
+      values[i] = tuple % radices[subset[i]];
+      tuple /= radices[subset[i]];
+    }
+    return values;
+  }
+
+  private static boolean compatible(int[] row, int[] subset, int dimension, int[] values) {
+    for (int i = 0; i < subset.length; i++) {
+      int current = row[subset[i]];
+      if (current != UNSET && current != values[i]) {
+        return false;
+      }
+    }
+    int current = row[dimension];
+    return current == UNSET || current == values[subset.length];
+  }
+
+  /**
+   * The {@code strength}-way combinations of values which a set of rows covers. Used to replace the
+   * rows of a covering array which break a constraint.
+   */
+  static final class Coverage {
+    private final int[] radices;
+    private final List<int[]> subsets;
+    private final BitSet[] covered;
+
+    Coverage(int[] radices, int strength) {
+      this.radices = radices;
+      this.subsets = subsets(radices.length, Math.min(strength, radices.length));
+      this.covered = new BitSet[subsets.size()];
+      for (int s = 0; s < covered.length; s++) {
+        covered[s] = new BitSet();
+      }
+    }
+
+    /** The number of combinations each row contains, one per subset of dimensions. */
+    int combinationsPerRow() {
+      return subsets.size();
+    }
+
+    /** Returns how many of the combinations in {@code row} are not yet covered. */
+    int gain(int[] row) {
+      int gain = 0;
+      for (int s = 0; s < covered.length; s++) {
+        if (!covered[s].get(encode(row, subsets.get(s)))) {
+          gain++;
+        }
+      }
+      return gain;
+    }
+
+    /**
+     * Returns the subsets of dimensions whose combination of values in {@code row} is not yet
+     * covered.
+     */
+    List<int[]> uncovered(int[] row) {
+      List<int[]> uncovered = new ArrayList<>();
+      for (int s = 0; s < covered.length; s++) {
+        if (!covered[s].get(encode(row, subsets.get(s)))) {
+          uncovered.add(subsets.get(s));
+        }
+      }
+      return uncovered;
+    }
+
+    /** Marks the combinations in {@code row} as covered. */
+    void add(int[] row) {
+      for (int s = 0; s < covered.length; s++) {
+        covered[s].set(encode(row, subsets.get(s)));
+      }
+    }
+
+    private int encode(int[] row, int[] subset) {
+      int tuple = 0;
+      for (int i : subset) {
+        tuple = tuple * radices[i] + row[i];
+      }
+      return tuple;
+    }
+  }
+
+  private CoveringArray() {
+    throw new AssertionError("No instances.");
+  }
+}
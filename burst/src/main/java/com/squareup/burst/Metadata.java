@@ -0,0 +1,80 @@
+package com.squareup.burst;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * Reflective metadata of test classes and enums, computed once per class and shared by every
+ * runner in the JVM. Reflection returns a fresh copy of most of it on every call, which adds up
+ * when many classes share base classes and enums.
+ * <p>
+ * Values are kept in {@link ClassValue}s, so they are thread-safe and don't keep classes from being
+ * unloaded. Arrays returned from here are shared and must not be modified. A computation which
+ * throws is not cached, so it throws again the next time.
+ */
+final class Metadata {
+  private static final ClassValue<TestConstructor> constructors =
+      new ClassValue<TestConstructor>() {
+        @Override protected TestConstructor computeValue(Class<?> type) {
+          return BurstableConstructor.findSingleUncached(type);
+        }
+      };
+
+  private static final ClassValue<Field[]> burstableFields = new ClassValue<Field[]>() {
+    @Override protected Field[] computeValue(Class<?> type) {
+      return BurstableConstructor.getBurstableFields(type);
+    }
+  };
+
+  /** Typed as {@code Object[]}, but each value is its enum's array of constants. */
+  private static final ClassValue<Object[]> enumConstants = new ClassValue<Object[]>() {
+    @Override protected Object[] computeValue(Class<?> type) {
+      return type.getEnumConstants();
+    }
+  };
+
+  private static final ClassValue<Map<Method, Annotation[][]>> parameterAnnotations =
+      new ClassValue<Map<Method, Annotation[][]>>() {
+        @Override protected Map<Method, Annotation[][]> computeValue(Class<?> type) {
+          Map<Method, Annotation[][]> annotations = new HashMap<>();
+          for (Method method : type.getDeclaredMethods()) {
+            annotations.put(method, method.getParameterAnnotations());
+          }
+          return annotations;
+        }
+      };
+
+  /** The constructor of {@code cls} which tests are created with. */
+  static TestConstructor constructor(Class<?> cls) {
+    return constructors.get(checkNotNull(cls, "cls"));
+  }
+
+  /** The {@link com.squareup.burst.annotation.Burst} fields of {@code cls} and its superclasses. */
+  static Field[] burstableFields(Class<?> cls) {
+    return burstableFields.get(checkNotNull(cls, "cls"));
+  }
+
+  /** The constants of {@code enumType}, in declared order. */
+  static Enum<?>[] enumConstants(Class<?> enumType) {
+    return (Enum<?>[]) enumConstants.get(checkNotNull(enumType, "enumType"));
+  }
+
+  static Annotation[][] parameterAnnotations(Method method) {
+    checkNotNull(method, "method");
+    Annotation[][] annotations = parameterAnnotations.get(method.getDeclaringClass()).get(method);
+    if (annotations == null) {
+      // Not declared by its class, such as a bridge method. Don't cache it.
+      return method.getParameterAnnotations();
+    }
+    return annotations;
+  }
+
+  private Metadata() {
+    throw new AssertionError("No instances.");
+  }
+}
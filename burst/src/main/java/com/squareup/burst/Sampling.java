@@ -0,0 +1,213 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Weight;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Picks reproducible random subsets of variations directly from index space. Values annotated with
+ * {@link Weight} are proportionally more likely to be picked.
+ */
+final class Sampling {
+  /**
+   * How many draws per requested variation to attempt before giving up on weighted draws. Heavily
+   * skewed weights keep drawing the same variations, so the remainder is then topped up uniformly.
+   */
+  private static final int ATTEMPTS_PER_VARIATION = 32;
+
+  /** Returns up to {@code max} distinct indices of {@code space}, in ascending order. */
+  static long[] sample(VariationSpace space, int max, long seed) {
+    long size = space.size();
+    if (max >= size) {
+      long[] all = new long[(int) size];
+      for (int i = 0; i < size; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+
+    Random random = new Random(seed);
+    Set<Long> picked = new HashSet<>();
+    double[][] cumulativeWeights = cumulativeWeights(space);
+    if (cumulativeWeights == null) {
+      // Floyd's algorithm picks uniformly without enumerating the space.
+      for (long j = size - max; j < size; j++) {
+        long candidate = nextLong(random, j + 1);
+        if (!picked.add(candidate)) {
+          picked.add(j);
+        }
+      }
+      return sorted(picked);
+    }
+
+    // Draw each dimension's value independently by weight. Duplicates are simply drawn again.
+    long attempts = (long) max * ATTEMPTS_PER_VARIATION;
+    for (long attempt = 0; attempt < attempts && picked.size() < max; attempt++) {
+      picked.add(draw(space, cumulativeWeights, random));
+    }
+    while (picked.size() < max) {
+      picked.add(nextLong(random, size));
+    }
+    return sorted(picked);
+  }
+
+  /**
+   * Returns up to {@code max} distinct indices of the variations of {@code validator}'s space which
+   * it accepts, in ascending order. Candidates are drawn as by {@link #sample(VariationSpace, int,
+   * long)} and rejected if invalid, so the valid variations are never enumerated. A space no larger
+   * than the number of draws is filtered instead, so that a sparse one still fills the sample. A
+   * larger space whose valid variations are too sparse for the draws to find yields fewer.
+   */
+  static long[] sample(Constraints.Validator validator, int max, long seed) {
+    VariationSpace space = validator.space;
+    long size = space.size();
+    long attempts = (long) max * ATTEMPTS_PER_VARIATION;
+    if (size <= attempts) {
+      return sample(space, validator.filter(Long.MAX_VALUE), max, seed);
+    }
+
+    Random random = new Random(seed);
+    Set<Long> drawn = new HashSet<>();
+    Set<Long> picked = new HashSet<>();
+    double[][] cumulativeWeights = cumulativeWeights(space);
+    for (long attempt = 0; attempt < attempts && picked.size() < max; attempt++) {
+      long index;
+      if (cumulativeWeights == null) {
+        index = nextLong(random, size);
+      } else {
+        index = draw(space, cumulativeWeights, random);
+      }
+      if (drawn.add(index) && validator.accepts(index)) {
+        picked.add(index);
+      }
+    }
+    return sorted(picked);
+  }
+
+  /**
+   * Returns up to {@code max} distinct elements of {@code indices}, in ascending order. Each is
+   * picked with a probability proportional to the product of the weights of its values.
+   */
+  static long[] sample(VariationSpace space, long[] indices, int max, long seed) {
+    if (max >= indices.length) {
+      return indices.clone();
+    }
+
+    // Weighted sampling without replacement (Efraimidis & Spirakis): keep the largest keys u^(1/w).
+    Random random = new Random(seed);
+    final double[] keys = new double[indices.length];
+    Integer[] order = new Integer[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      keys[i] = Math.pow(random.nextDouble(), 1.0 / weight(space, indices[i]));
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare(Integer a, Integer b) {
+        return Double.compare(keys[b], keys[a]);
+      }
+    });
+
+    long[] result = new long[max];
+    for (int i = 0; i < max; i++) {
+      result[i] = indices[order[i]];
+    }
+    Arrays.sort(result);
+    return result;
+  }
+
+  /** Returns the weight of {@code value}, as declared by {@link Weight} on its constant. */
+  static double weight(Enum<?> value) {
+    try {
+      Weight weight = value.getDeclaringClass().getField(value.name()).getAnnotation(Weight.class);
+      if (weight == null) {
+        return 1.0;
+      }
+      if (!(weight.value() > 0.0)) {
+        throw new IllegalStateException("Weight of " + value.getDeclaringClass().getName() + '.'
+            + value.name() + " must be positive. (" + weight.value() + ')');
+      }
+      return weight.value();
+    } catch (NoSuchFieldException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static double weight(VariationSpace space, long index) {
+    double weight = 1.0;
+    int[] digits = space.digits(index);
+    for (int i = 0; i < digits.length; i++) {
+      weight *= weight(space.value(i, digits[i]));
+    }
+    return weight;
+  }
+
+  /** Returns each dimension's running total of weights, or null if no value is weighted. */
+  private static double[][] cumulativeWeights(VariationSpace space) {
+    boolean weighted = false;
+    double[][] cumulative = new double[space.dimensions()][];
+    for (int i = 0; i < cumulative.length; i++) {
+      cumulative[i] = new double[space.valueCount(i)];
+      double total = 0.0;
+      for (int v = 0; v < cumulative[i].length; v++) {
+        double weight = weight(space.value(i, v));
+        weighted |= weight != 1.0;
+        total += weight;
+        cumulative[i][v] = total;
+      }
+    }
+    if (!weighted) {
+      return null;
+    }
+    return cumulative;
+  }
+
+  /** Draws each dimension's value independently by weight, returning the variation's index. */
+  private static long draw(VariationSpace space, double[][] cumulativeWeights, Random random) {
+    long index = 0;
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      index = index * space.valueCount(i) + draw(cumulativeWeights[i], random);
+    }
+    return index;
+  }
+
+  private static int draw(double[] cumulativeWeights, Random random) {
+    double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+    int index = Arrays.binarySearch(cumulativeWeights, target);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return Math.min(index, cumulativeWeights.length - 1);
+  }
+
+  /** Returns a uniformly distributed value in {@code [0, bound)}. */
+  private static long nextLong(Random random, long bound) {
+    if (bound <= Integer.MAX_VALUE) {
+      return random.nextInt((int) bound);
+    }
+    // Reject the values of the last, incomplete multiple of bound to avoid bias.
+    long bits;
+    long value;
+    do {
+      bits = random.nextLong() >>> 1;
+      value = bits % bound;
+    } while (bits - value + (bound - 1) < 0);
+    return value;
+  }
+
+  private static long[] sorted(Set<Long> values) {
+    long[] result = new long[values.size()];
+    int i = 0;
+    for (long value : values) {
+      result[i++] = value;
+    }
+    Arrays.sort(result);
+    return result;
+  }
+
+  private Sampling() {
+    throw new AssertionError("No instances.");
+  }
+}
@@ -0,0 +1,160 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Name;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * Selects variations by the values of their dimensions, such as {@code Soda=PEPSI,Snack=*}.
+ * <p>
+ * An expression is a comma-separated list of {@code key=values} terms. A key stands for every
+ * dimension whose {@link Name} is the key or, failing that, whose enum's simple name is the key.
+ * Values are constant names separated by {@code |}, or {@code *} for any value. Dimensions which no
+ * key stands for are not restricted, so one expression can apply to many classes.
+ * <p>
+ * A selection narrows a {@link VariationSpace} before any variation is enumerated, so variations
+ * it excludes are never created.
+ */
+final class Selection {
+  /** Selects every variation. */
+  static final Selection ALL = new Selection("", Collections.<String, Set<String>>emptyMap());
+
+  private final String expression;
+  /** The values selected for each key, or null for any value. */
+  private final Map<String, Set<String>> valuesByKey;
+
+  private Selection(String expression, Map<String, Set<String>> valuesByKey) {
+    this.expression = expression;
+    this.valuesByKey = valuesByKey;
+  }
+
+  /**
+   * @throws IllegalStateException If {@code expression} is malformed.
+   */
+  static Selection parse(String expression) {
+    checkNotNull(expression, "expression");
+    if (expression.trim().isEmpty()) {
+      return ALL;
+    }
+    Map<String, Set<String>> valuesByKey = new LinkedHashMap<>();
+    for (String term : expression.split(",")) {
+      int equals = term.indexOf('=');
+      if (equals == -1) {
+        throw new IllegalStateException(
+            "Selection term must be key=values: \"" + term.trim() + "\". (" + expression + ')');
+      }
+      String key = term.substring(0, equals).trim();
+      String values = term.substring(equals + 1).trim();
+      if (key.isEmpty() || values.isEmpty()) {
+        throw new IllegalStateException(
+            "Selection term must be key=values: \"" + term.trim() + "\". (" + expression + ')');
+      }
+      if (valuesByKey.containsKey(key)) {
+        throw new IllegalStateException(
+            "Selection has several terms for " + key + ". (" + expression + ')');
+      }
+      Set<String> names = null;
+      if (!values.equals("*")) {
+        names = new HashSet<>();
+        for (String name : values.split("\\|")) {
+          names.add(name.trim());
+        }
+      }
+      valuesByKey.put(key, names);
+    }
+    return new Selection(expression, valuesByKey);
+  }
+
+  boolean isAll() {
+    return valuesByKey.isEmpty();
+  }
+
+  /**
+   * Returns {@code space} with each dimension which a key stands for narrowed to the selected
+   * values. A dimension left with no values, as its selected values were already excluded, leaves
+   * the space without variations.
+   *
+   * @param dimensionAnnotations the annotations of each dimension, used to match {@link Name}s.
+   * @throws IllegalStateException If a selected value is not a constant of its dimension's enum.
+   */
+  VariationSpace apply(VariationSpace space, Annotation[][] dimensionAnnotations) {
+    checkNotNull(space, "space");
+    checkNotNull(dimensionAnnotations, "dimensionAnnotations");
+    if (isAll()) {
+      return space;
+    }
+
+    int dimensions = space.dimensions();
+    Class<?>[] types = new Class<?>[dimensions];
+    Enum<?>[][] valuesList = new Enum<?>[dimensions][];
+    boolean narrowed = false;
+    for (int i = 0; i < dimensions; i++) {
+      types[i] = space.type(i);
+      Set<String> selected = null;
+      String key = key(types[i], dimensionAnnotations[i]);
+      if (key != null) {
+        selected = valuesByKey.get(key);
+        check(key, types[i], selected);
+      }
+      List<Enum<?>> values = new ArrayList<>(space.valueCount(i));
+      for (int v = 0; v < space.valueCount(i); v++) {
+        Enum<?> value = space.value(i, v);
+        if (selected == null || selected.contains(value.name())) {
+          values.add(value);
+        }
+      }
+      narrowed |= values.size() < space.valueCount(i);
+      valuesList[i] = values.toArray(new Enum<?>[values.size()]);
+    }
+    if (!narrowed) {
+      return space;
+    }
+    return new VariationSpace(types, valuesList);
+  }
+
+  /** Returns the key which stands for a dimension, or null if none does. */
+  private String key(Class<?> type, Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (annotation instanceof Name && valuesByKey.containsKey(((Name) annotation).value())) {
+        return ((Name) annotation).value();
+      }
+    }
+    if (valuesByKey.containsKey(type.getSimpleName())) {
+      return type.getSimpleName();
+    }
+    return null;
+  }
+
+  private void check(String key, Class<?> type, Set<String> selected) {
+    if (selected == null) {
+      return;
+    }
+    Set<String> names = new HashSet<>();
+    for (Enum<?> constant : Metadata.enumConstants(type)) {
+      names.add(constant.name());
+    }
+    for (String name : selected) {
+      if (!names.contains(name)) {
+        throw new IllegalStateException("Selection "
+            + key
+            + " has no value named "
+            + name
+            + ". ("
+            + type.getName()
+            + ')');
+      }
+    }
+  }
+
+  @Override public String toString() {
+    return expression;
+  }
+}
@@ -1,33 +1,84 @@
 package com.squareup.burst;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
 
 import static com.squareup.burst.Util.checkNotNull;
 
 /**
- * A wrapper around {@link Constructor} that can also set fields reflectively.
+ * A wrapper around {@link Constructor} that can also set fields reflectively. Instances are
+ * immutable, so tests may be instantiated from several threads at once.
+ * <p>
+ * {@link #newInstance(Object[])} calls method handles which are looked up once, reading each
+ * argument straight from the array it is passed, rather than splitting that array and going through
+ * reflection's access checks on every call.
  */
 final class TestConstructor {
+  private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
   private final Constructor<?> constructor;
   private final Field[] fields;
+  private final int parameterCount;
+  /** Calls the constructor with the leading elements of an argument array. */
+  private final MethodHandle instantiator;
+  /** Sets each field of an instance. */
+  private final MethodHandle[] setters;
+  private final Annotation[][] argumentAnnotations;
+  private final ArgumentNames argumentNames;
 
   public TestConstructor(Constructor<?> constructor, Field... fields) {
     this.constructor = checkNotNull(constructor, "constructor");
-    this.fields = fields;
+    this.fields = fields.clone();
+    this.parameterCount = constructor.getParameterTypes().length;
+
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    constructor.setAccessible(true);
+    this.setters = new MethodHandle[fields.length];
+    try {
+      this.instantiator = instantiator(lookup.unreflectConstructor(constructor), parameterCount);
+      for (int i = 0; i < fields.length; i++) {
+        fields[i].setAccessible(true);
+        setters[i] = lookup.unreflectSetter(fields[i]).asType(SETTER_TYPE);
+      }
+    } catch (IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+    this.argumentAnnotations = argumentAnnotations(constructor, this.fields);
+    this.argumentNames = new ArgumentNames(getVariationTypes(), argumentAnnotations);
+  }
 
-    for (Field field : fields) {
-      field.setAccessible(true);
+  /**
+   * Adapts {@code constructor} to take a single {@code Object[]} and pass it its first
+   * {@code parameterCount} elements.
+   */
+  private static MethodHandle instantiator(MethodHandle constructor, int parameterCount) {
+    MethodHandle handle = constructor.asType(MethodType.genericMethodType(parameterCount));
+    MethodHandle getter = MethodHandles.arrayElementGetter(Object[].class);
+    MethodHandle[] elements = new MethodHandle[parameterCount];
+    for (int i = 0; i < parameterCount; i++) {
+      elements[i] = MethodHandles.insertArguments(getter, 1, i);
     }
+    handle = MethodHandles.filterArguments(handle, 0, elements);
+    // Every parameter reads from the same array.
+    return MethodHandles.permuteArguments(handle,
+        MethodType.methodType(Object.class, Object[].class), new int[parameterCount]);
   }
 
   public String getName() {
     return constructor.getName();
   }
 
+  /** The class whose instances this creates. */
+  public Class<?> getDeclaringClass() {
+    return constructor.getDeclaringClass();
+  }
+
   public Class<?>[] getConstructorParameterTypes() {
     return constructor.getParameterTypes();
   }
@@ -52,70 +103,56 @@ final class TestConstructor {
   }
 
   /**
-   * Calls {@link Constructor#newInstance(java.lang.Object...)}, as
-   * well as initializing all the fields passed to
+   * Calls the constructor through its method handle, then initializes all the fields passed to
    * {@link TestConstructor#TestConstructor(Constructor, Field...)}.
    * <p>
    * Constructor arguments should be first in the array, followed by field arguments.
+   *
+   * @throws InvocationTargetException If the constructor throws an exception.
+   * @throws ClassCastException If an argument is not of its parameter's type.
    */
-  public Object newInstance(Object[] args)
-      throws IllegalAccessException, InvocationTargetException, InstantiationException {
-    if (args.length != getVariationTypes().length) {
+  public Object newInstance(Object[] args) throws InvocationTargetException {
+    int variationCount = parameterCount + fields.length;
+    if (args.length != variationCount) {
       throw new IllegalArgumentException(String.format(
-          "Constructor takes %d values, only %d passed", getVariationTypes().length, args.length));
+          "Constructor takes %d values, only %d passed", variationCount, args.length));
     }
 
-    // Partition arg list
-    final Object[] ctorArgs = extractConstructorArgs(args);
-    final Object[] fieldArgs = extractFieldArgs(args);
-
-    final Object instance = newInstanceWithoutFields(ctorArgs);
-    initializeFieldsOnInstance(instance, fieldArgs);
+    final Object instance;
+    try {
+      instance = (Object) instantiator.invokeExact(args);
+    } catch (Error | ClassCastException e) {
+      throw e;
+    } catch (Throwable t) {
+      // As reflection would, so callers see the constructor's exception the same way.
+      throw new InvocationTargetException(t);
+    }
+    for (int i = 0; i < setters.length; i++) {
+      try {
+        setters[i].invokeExact(instance, args[parameterCount + i]);
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IllegalArgumentException("Cannot set " + fields[i].getName(), t);
+      }
+    }
     return instance;
   }
 
   /**
-   * @return array containing the elements of <code>args</code> that apply to the underlying
-   * constructor.
-   */
-  public Object[] extractConstructorArgs(final Object[] args) {
-    return Arrays.copyOfRange(args, 0, constructor.getParameterTypes().length);
-  }
-
-  /**
-   * @return array containing the elements of <code>args</code> that apply to fields.
+   * Returns the annotations of each constructor parameter, followed by those of each field. The
+   * array is shared and must not be modified.
    */
-  public Object[] extractFieldArgs(final Object[] args) {
-    return Arrays.copyOfRange(args, constructor.getParameterTypes().length, args.length);
+  public Annotation[][] getArgumentAnnotations() {
+    return argumentAnnotations;
   }
 
-  /**
-   * Creates a new instance by calling the underlying constructor, without initializing
-   * any fields.
-   */
-  public Object newInstanceWithoutFields(Object[] args)
-      throws IllegalAccessException, InvocationTargetException, InstantiationException {
-    return constructor.newInstance(args);
+  /** Names variations of this constructor's arguments, followed by its fields. */
+  ArgumentNames getArgumentNames() {
+    return argumentNames;
   }
 
-  /**
-   * Sets the fields on an instance (as passed to
-   * {@link TestConstructor#TestConstructor(Constructor, Field...)}) to <code>args</code>.
-   * The number of arguments in the array must be equal to the number of fields.
-   */
-  public void initializeFieldsOnInstance(final Object instance, final Object[] args)
-      throws IllegalAccessException {
-    if (fields.length != args.length) {
-      throw new IllegalArgumentException(String.format(
-          "Requires values for %d fields, only %d values passed", fields.length, args.length));
-    }
-
-    for (int i = 0; i < fields.length; i++) {
-      fields[i].set(instance, args[i]);
-    }
-  }
-
-  public Annotation[][] getArgumentAnnotations() {
+  private static Annotation[][] argumentAnnotations(Constructor<?> constructor, Field[] fields) {
     final Annotation[][] ctorAnnotations = constructor.getParameterAnnotations();
     final Annotation[][] allAnnotations = new Annotation[ctorAnnotations.length + fields.length][];
 
@@ -8,6 +8,23 @@ final class Util {
     return o;
   }
 
+  /** Returns {@code a * b} for non-negative values, or {@link Long#MAX_VALUE} on overflow. */
+  static long saturatedMultiply(long a, long b) {
+    if (a != 0 && b > Long.MAX_VALUE / a) {
+      return Long.MAX_VALUE;
+    }
+    return a * b;
+  }
+
+  /** Returns {@code a + b} for non-negative values, or {@link Long#MAX_VALUE} on overflow. */
+  static long saturatedAdd(long a, long b) {
+    long sum = a + b;
+    if (sum < 0) {
+      return Long.MAX_VALUE;
+    }
+    return sum;
+  }
+
   private Util() {
     throw new AssertionError("No instances.");
   }
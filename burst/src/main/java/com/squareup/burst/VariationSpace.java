@@ -0,0 +1,418 @@
+package com.squareup.burst;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * All combinations of the values of a list of enum types. Rather than materializing every
+ * combination up front, each variation is identified by an index and decoded on demand.
+ * <p>
+ * Indices are mixed-radix numbers with one digit per dimension, the first dimension being the most
+ * significant. Iterating indices from 0 to {@link #size()} therefore yields the same order as the
+ * nested loops {@code for (first : ...) for (second : ...) ...}.
+ */
+public final class VariationSpace {
+  /** How many random variations to try when replacing an invalid row of a covering array. */
+  private static final int REPLACEMENT_ATTEMPTS = 256;
+
+  private final Class<?>[] types;
+  private final Enum<?>[][] valuesList;
+  /** The index distance between two adjacent values of each dimension. */
+  private final long[] strides;
+  private final long size;
+
+  /**
+   * @throws IllegalStateException If the space has more than {@link Long#MAX_VALUE} variations.
+   */
+  VariationSpace(Class<?>[] types, Enum<?>[][] valuesList) {
+    this.types = checkNotNull(types, "types");
+    this.valuesList = checkNotNull(valuesList, "valuesList");
+    this.strides = new long[valuesList.length];
+
+    long count = 1;
+    for (int i = valuesList.length - 1; i >= 0; i--) {
+      strides[i] = count;
+      int radix = valuesList[i].length;
+      if (radix != 0 && count > Long.MAX_VALUE / radix) {
+        throw new IllegalStateException(
+            "Too many variations to count. (" + describeDimensions() + ')');
+      }
+      count *= radix;
+    }
+    this.size = count;
+  }
+
+  /** The number of enum-typed dimensions in this space. */
+  public int dimensions() {
+    return valuesList.length;
+  }
+
+  /** The total number of variations. A space with no dimensions has exactly one variation. */
+  public long size() {
+    return size;
+  }
+
+  /** The enum type of {@code dimension}. */
+  public Class<?> type(int dimension) {
+    return types[dimension];
+  }
+
+  /** The number of values {@code dimension} can take. */
+  public int valueCount(int dimension) {
+    return valuesList[dimension].length;
+  }
+
+  /** The value at {@code valueIndex} of {@code dimension}. */
+  public Enum<?> value(int dimension, int valueIndex) {
+    return valuesList[dimension][valueIndex];
+  }
+
+  /** Decodes the arguments of the variation at {@code index}. */
+  public Enum<?>[] get(long index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " not in [0, " + size + ')');
+    }
+
+    Enum<?>[] arguments = new Enum<?>[valuesList.length];
+    for (int i = valuesList.length - 1; i >= 0; i--) {
+      Enum<?>[] values = valuesList[i];
+      arguments[i] = values[(int) (index % values.length)];
+      index /= values.length;
+    }
+    return arguments;
+  }
+
+  /** Decodes the value index of each dimension of the variation at {@code index}. */
+  int[] digits(long index) {
+    int[] digits = new int[valuesList.length];
+    for (int i = valuesList.length - 1; i >= 0; i--) {
+      digits[i] = (int) (index % valuesList[i].length);
+      index /= valuesList[i].length;
+    }
+    return digits;
+  }
+
+  /**
+   * Returns the index of the variation at {@code rank} in reflected Gray code order. Consecutive
+   * ranks differ in exactly one dimension, and by one value of it.
+   * <p>
+   * Each dimension counts up through its values, then back down, as the dimension before it
+   * advances. The variations of each value of the first dimension are therefore visited forwards
+   * for even values and backwards for odd ones, and so on recursively.
+   */
+  public long grayIndex(long rank) {
+    if (rank < 0 || rank >= size) {
+      throw new IndexOutOfBoundsException("rank " + rank + " not in [0, " + size + ')');
+    }
+
+    long index = 0;
+    for (int i = 0; i < strides.length; i++) {
+      long digit = rank / strides[i];
+      rank %= strides[i];
+      if (digit % 2 == 1) {
+        rank = strides[i] - 1 - rank;
+      }
+      index += digit * strides[i];
+    }
+    return index;
+  }
+
+  /** Returns the rank in reflected Gray code order of the variation at {@code index}. */
+  public long grayRank(long index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " not in [0, " + size + ')');
+    }
+
+    long rank = 0;
+    for (int i = strides.length - 1; i >= 0; i--) {
+      long digit = index / strides[i] % valuesList[i].length;
+      if (digit % 2 == 1) {
+        rank = strides[i] - 1 - rank;
+      }
+      rank += digit * strides[i];
+    }
+    return rank;
+  }
+
+  /**
+   * Returns a spliterator over every variation of this space. It can be split evenly for parallel
+   * traversal.
+   */
+  public VariationSpliterator spliterator() {
+    return new VariationSpliterator(this, 0, size);
+  }
+
+  /**
+   * Encodes {@code arguments} into the index of its variation.
+   *
+   * @throws IllegalArgumentException If {@code arguments} is not a variation of this space.
+   */
+  public long indexOf(Enum<?>[] arguments) {
+    checkNotNull(arguments, "arguments");
+    if (arguments.length != valuesList.length) {
+      throw new IllegalArgumentException(String.format(
+          "Space has %d dimensions, %d arguments passed", valuesList.length, arguments.length));
+    }
+
+    long index = 0;
+    for (int i = 0; i < valuesList.length; i++) {
+      int valueIndex = Arrays.asList(valuesList[i]).indexOf(arguments[i]);
+      if (valueIndex == -1) {
+        throw new IllegalArgumentException(
+            "Argument #" + (i + 1) + " is not a value of this space. (" + arguments[i] + ')');
+      }
+      index += valueIndex * strides[i];
+    }
+    return index;
+  }
+
+  /**
+   * Returns a space whose variations are those of this space followed by those of {@code other}.
+   * The index of a combined variation is {@code thisIndex * other.size() + otherIndex}.
+   */
+  public VariationSpace product(VariationSpace other) {
+    checkNotNull(other, "other");
+    Class<?>[] combinedTypes = new Class<?>[types.length + other.types.length];
+    System.arraycopy(types, 0, combinedTypes, 0, types.length);
+    System.arraycopy(other.types, 0, combinedTypes, types.length, other.types.length);
+    Enum<?>[][] combined = new Enum<?>[valuesList.length + other.valuesList.length][];
+    System.arraycopy(valuesList, 0, combined, 0, valuesList.length);
+    System.arraycopy(other.valuesList, 0, combined, valuesList.length, other.valuesList.length);
+    return new VariationSpace(combinedTypes, combined);
+  }
+
+  /**
+   * Returns the indices, in ascending order, of a subset of variations in which every combination
+   * of values of any {@code strength} dimensions occurs at least once. With a strength of 2 this is
+   * pairwise testing. A strength at least {@link #dimensions()} selects every variation.
+   */
+  public long[] covering(int strength) {
+    List<int[]> rows = CoveringArray.generate(radices(), strength);
+    long[] indices = new long[rows.size()];
+    for (int r = 0; r < rows.size(); r++) {
+      indices[r] = index(rows.get(r));
+    }
+    Arrays.sort(indices);
+    return distinct(indices);
+  }
+
+  /**
+   * Returns the indices, in ascending order, of a subset of the variations which {@code validator}
+   * accepts, in which every combination of values of any {@code strength} dimensions that a valid
+   * variation was found for occurs at least once.
+   * <p>
+   * This keeps the valid rows of {@link #covering(int)}, and replaces each invalid row with valid
+   * variations which share its combinations that are still uncovered. Those are searched for near
+   * the row: first the row with one value changed, and then a bounded number of random variations
+   * which keep the values of one of those combinations. The valid variations are never enumerated,
+   * so a combination which few of them have may be missed.
+   */
+  long[] covering(int strength, Constraints.Validator validator) {
+    checkNotNull(validator, "validator");
+    if (validator.space != this) {
+      throw new IllegalArgumentException("validator is bound to " + validator.space);
+    }
+    int[] radices = radices();
+    List<int[]> rows = CoveringArray.generate(radices, strength);
+    CoveringArray.Coverage coverage = new CoveringArray.Coverage(radices, strength);
+    List<int[]> invalid = new ArrayList<>();
+    long[] indices = new long[rows.size() + 16];
+    int count = 0;
+    for (int[] row : rows) {
+      if (validator.accepts(arguments(row))) {
+        coverage.add(row);
+        indices[count++] = index(row);
+      } else {
+        invalid.add(row);
+      }
+    }
+
+    // Seeded, so that the same class always runs the same variations.
+    Random random = new Random(size);
+    for (int[] row : invalid) {
+      List<int[]> uncovered = coverage.uncovered(row);
+      while (!uncovered.isEmpty()) {
+        int[] replacement = findReplacement(row, uncovered, validator, random);
+        if (replacement == null) {
+          break;
+        }
+        coverage.add(replacement);
+        if (count == indices.length) {
+          indices = Arrays.copyOf(indices, count * 2);
+        }
+        indices[count++] = index(replacement);
+        uncovered = coverage.uncovered(row);
+      }
+    }
+    indices = Arrays.copyOf(indices, count);
+    Arrays.sort(indices);
+    return distinct(indices);
+  }
+
+  /**
+   * Returns the valid variation near {@code row} which has the most of its {@code uncovered}
+   * combinations, or null if no candidate is valid and has any.
+   */
+  private int[] findReplacement(int[] row, List<int[]> uncovered,
+      Constraints.Validator validator, Random random) {
+    int[] best = null;
+    int bestShared = 0;
+    int[] candidate = row.clone();
+    for (int i = 0; i < row.length; i++) {
+      for (int v = 0; v < valuesList[i].length; v++) {
+        if (v == row[i]) {
+          continue;
+        }
+        candidate[i] = v;
+        int shared = shared(candidate, row, uncovered);
+        if (shared > bestShared && validator.accepts(arguments(candidate))) {
+          best = candidate.clone();
+          bestShared = shared;
+        }
+      }
+      candidate[i] = row[i];
+    }
+    for (int attempt = 0; attempt < REPLACEMENT_ATTEMPTS && best == null; attempt++) {
+      int[] kept = uncovered.get(random.nextInt(uncovered.size()));
+      for (int i = 0; i < candidate.length; i++) {
+        candidate[i] = random.nextInt(valuesList[i].length);
+      }
+      for (int i : kept) {
+        candidate[i] = row[i];
+      }
+      int shared = shared(candidate, row, uncovered);
+      if (shared > bestShared && validator.accepts(arguments(candidate))) {
+        best = candidate.clone();
+        bestShared = shared;
+      }
+    }
+    return best;
+  }
+
+  /** Returns how many of {@code row}'s {@code uncovered} combinations {@code candidate} has. */
+  private static int shared(int[] candidate, int[] row, List<int[]> uncovered) {
+    int shared = 0;
+    for (int[] subset : uncovered) {
+      boolean same = true;
+      for (int i : subset) {
+        same &= candidate[i] == row[i];
+      }
+      if (same) {
+        shared++;
+      }
+    }
+    return shared;
+  }
+
+  private Enum<?>[] arguments(int[] row) {
+    Enum<?>[] arguments = new Enum<?>[row.length];
+    for (int i = 0; i < row.length; i++) {
+      arguments[i] = valuesList[i][row[i]];
+    }
+    return arguments;
+  }
+
+  private long index(int[] row) {
+    long index = 0;
+    for (int i = 0; i < row.length; i++) {
+      index += row[i] * strides[i];
+    }
+    return index;
+  }
+
+  private int[] radices() {
+    int[] radices = new int[valuesList.length];
+    for (int i = 0; i < valuesList.length; i++) {
+      radices[i] = valuesList[i].length;
+    }
+    return radices;
+  }
+
+  /**
+   * Returns the indices, in ascending order, of a reproducible random subset of at most {@code max}
+   * variations. Indices are picked directly rather than by enumerating the space. Values whose
+   * constants are annotated with {@link com.squareup.burst.annotation.Weight} are proportionally
+   * more likely to be picked.
+   */
+  public long[] sample(int max, long seed) {
+    return Sampling.sample(this, max, seed);
+  }
+
+  /**
+   * Returns the indices, in ascending order, of a reproducible random subset of at most {@code max}
+   * of the variations which {@code validator} accepts. Like {@link #sample(int, long)}, weighted
+   * values are more likely to be picked. Invalid variations are drawn and rejected rather than the
+   * valid ones enumerated, see {@link Sampling#sample(Constraints.Validator, int, long)}.
+   */
+  long[] sample(Constraints.Validator validator, int max, long seed) {
+    checkNotNull(validator, "validator");
+    if (validator.space != this) {
+      throw new IllegalArgumentException("validator is bound to " + validator.space);
+    }
+    return Sampling.sample(validator, max, seed);
+  }
+
+  /**
+   * Returns a reproducible random subset of at most {@code max} of {@code indices}, in ascending
+   * order. Like {@link #sample(int, long)}, weighted values are more likely to be picked.
+   */
+  public long[] sample(long[] indices, int max, long seed) {
+    checkNotNull(indices, "indices");
+    return Sampling.sample(this, indices, max, seed);
+  }
+
+  private static long[] distinct(long[] sorted) {
+    int count = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[count++] = sorted[i];
+      }
+    }
+    return Arrays.copyOf(sorted, count);
+  }
+
+  /**
+   * Describes each dimension and its number of values, for example
+   * {@code "Soda (3) x Snack (4) = 12"}.
+   */
+  @Override public String toString() {
+    return describeDimensions() + " = " + size;
+  }
+
+  private String describeDimensions() {
+    if (types.length == 0) {
+      return "no dimensions";
+    }
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < types.length; i++) {
+      if (i > 0) {
+        builder.append(" x ");
+      }
+      builder.append(types[i].getSimpleName())
+          .append(" (")
+          .append(valuesList[i].length)
+          .append(')');
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Materializes every variation in index order.
+   *
+   * @throws IllegalStateException If there are too many variations to fit in an array.
+   */
+  Enum<?>[][] toArray() {
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Too many variations to materialize. (" + this + ')');
+    }
+    Enum<?>[][] arguments = new Enum<?>[(int) size][];
+    for (int index = 0; index < size; index++) {
+      arguments[index] = get(index);
+    }
+    return arguments;
+  }
+}
@@ -0,0 +1,89 @@
+package com.squareup.burst;
+
+import static com.squareup.burst.Util.checkNotNull;
+
+/**
+ * Traverses and partitions a range of variations of a {@link VariationSpace}. This follows the
+ * contract of a {@code SIZED} and {@code SUBSIZED} {@code java.util.Spliterator} so that callers
+ * can fan variations out over a {@link java.util.concurrent.ForkJoinPool} (or adapt it to a
+ * parallel {@code Stream} on Java 8) without materializing the whole space.
+ * <p>
+ * Splitting halves the remaining index range, so every split is exact and evenly sized.
+ */
+public final class VariationSpliterator {
+  /** Receives the arguments of each traversed variation. */
+  public interface Action {
+    void accept(Enum<?>[] arguments);
+  }
+
+  private final VariationSpace space;
+  private long index;
+  private final long fence;
+
+  VariationSpliterator(VariationSpace space, long origin, long fence) {
+    this.space = checkNotNull(space, "space");
+    this.index = origin;
+    this.fence = fence;
+  }
+
+  /**
+   * Performs {@code action} on the next variation, if any.
+   *
+   * @return false if no variations remained.
+   */
+  public boolean tryAdvance(Action action) {
+    checkNotNull(action, "action");
+    if (index >= fence) {
+      return false;
+    }
+    action.accept(space.get(index++));
+    return true;
+  }
+
+  /** Performs {@code action} on every remaining variation, in index order. */
+  public void forEachRemaining(Action action) {
+    checkNotNull(action, "action");
+    if (index >= fence) {
+      return;
+    }
+
+    // Decode the first variation, then count upwards digit by digit instead of decoding each index.
+    int dimensions = space.dimensions();
+    int[] digits = space.digits(index);
+    while (true) {
+      Enum<?>[] arguments = new Enum<?>[dimensions];
+      for (int i = 0; i < dimensions; i++) {
+        arguments[i] = space.value(i, digits[i]);
+      }
+      action.accept(arguments);
+
+      if (++index >= fence) {
+        return;
+      }
+      for (int i = dimensions - 1; i >= 0 && ++digits[i] == space.valueCount(i); i--) {
+        digits[i] = 0;
+      }
+    }
+  }
+
+  /**
+   * Partitions the remaining variations. The returned spliterator covers the first half of the
+   * remaining range, and this one covers the rest.
+   *
+   * @return null if fewer than two variations remain.
+   */
+  public VariationSpliterator trySplit() {
+    long mid = (index + fence) >>> 1;
+    if (mid <= index) {
+      return null;
+    }
+    VariationSpliterator prefix = new VariationSpliterator(space, index, mid);
+    index = mid;
+    return prefix;
+  }
+
+  /** The exact number of variations remaining. */
+  public long estimateSize() {
+    return fence - index;
+  }
+}
@@ -0,0 +1,35 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a static method of a test class which decides whether a combination of values is valid.
+ * Combinations it rejects are never run, nor are the objects to run them created.
+ * <p>
+ * The method returns a boolean and takes one or more enum parameters. Each parameter stands for the
+ * constructor parameter, {@link Burst} field or test method parameter of the same type. If a test
+ * has several of that type, add a {@link Name} to tell them apart. A constraint only applies to the
+ * test methods which have all of its parameters.
+ * <pre>
+ *   {@literal @}RunWith(BurstJUnit4.class)
+ *   public class CheckoutTest {
+ *     {@literal @}Burst Payment payment;
+ *
+ *     {@literal @}Constraint
+ *     public static boolean cashIsNeverSynced(Payment payment, Network network) {
+ *       return payment != Payment.CASH || network != Network.OFFLINE_SYNC;
+ *     }
+ *
+ *     {@literal @}Test public void checkout(Network network) {
+ *       …
+ *     }
+ *   }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Constraint {
+}
@@ -0,0 +1,37 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class to run a t-wise covering subset of its variations rather than all of them.
+ * For each test method, the constructor or {@link Burst} field dimensions and the method parameter
+ * dimensions are covered together: every combination of values of any {@code strength} of those
+ * dimensions is run at least once.
+ * <p>
+ * For example, with four fields of three values each, the following runs 10 variations of each test
+ * method rather than 81, while still exercising every pair of values:
+ * <pre>
+ *   {@literal @}RunWith(BurstJUnit4.class)
+ *   {@literal @}Covering(strength = 2)
+ *   public class MyTests {
+ *     {@literal @}Burst Soda soda;
+ *     {@literal @}Burst Snack snack;
+ *     {@literal @}Burst Magazine magazine;
+ *     {@literal @}Burst Radio radio;
+ *
+ *     …
+ *   }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Covering {
+
+  /**
+   * @return The number of dimensions whose value combinations must all be covered. 2 is pairwise.
+   */
+  int strength() default 2;
+}
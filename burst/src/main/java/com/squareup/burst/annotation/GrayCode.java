@@ -0,0 +1,21 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class to run its variations in reflected Gray code order rather than in nested loop
+ * order. Each variation of the constructor or {@link Burst} fields then differs from the previous
+ * one in exactly one value, as do consecutive variations of each test method. Fixtures keyed on
+ * each value are set up and torn down less often.
+ * <p>
+ * For example, with fields {@code Soda} and {@code Snack} the variations run as
+ * {@code [PEPSI, CHIPS]}, {@code [PEPSI, NUTS]}, {@code [PEPSI, CANDY]}, {@code [COKE, CANDY]},
+ * {@code [COKE, NUTS]}, {@code [COKE, CHIPS]}, {@code [RC_COLA, CHIPS]} and so on.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GrayCode {
+}
@@ -0,0 +1,20 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class to describe its variations as a tree with a level per dimension of the
+ * constructor or {@link Burst} fields, rather than as one long list of siblings. IDEs and reports
+ * then render a few nodes per level, and each node shows whether every test under it passed.
+ * <p>
+ * For example, with fields {@code Soda} and {@code Snack} the tests of {@code [PEPSI, CHIPS]} are
+ * described under {@code Soda=PEPSI} and then {@code Snack=CHIPS}. A dimension with a {@link Name}
+ * is labeled with that name instead of its enum's.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Hierarchical {
+}
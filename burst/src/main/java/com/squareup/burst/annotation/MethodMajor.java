@@ -0,0 +1,21 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class to run each test method over every constructor or {@link Burst} field
+ * variation before the next test method, rather than every test method of one variation before the
+ * next variation. The tests and their descriptions are unchanged; only the order in which they run
+ * differs.
+ * <p>
+ * For example, with a {@code Soda} field and test methods {@code a} and {@code b} the tests run as
+ * {@code a[PEPSI]}, {@code a[COKE]}, {@code a[RC_COLA]}, {@code b[PEPSI]}, {@code b[COKE]} and
+ * {@code b[RC_COLA]}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MethodMajor {
+}
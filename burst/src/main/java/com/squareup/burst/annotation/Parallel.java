@@ -0,0 +1,61 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class to run its constructor or {@link Burst} field variations concurrently, and
+ * optionally the tests of each variation too. Each test still runs its {@code @Before} and
+ * {@code @After} methods around it, and {@code @BeforeClass}, {@code @AfterClass} and
+ * {@code @ClassRule} still run once for the whole class.
+ * <pre>
+ *   {@literal @}RunWith(BurstJUnit4.class)
+ *   {@literal @}Parallel(parallelism = 8)
+ *   public class MyTests {
+ *     …
+ *   }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Parallel {
+  /** The value of {@link #parallelism()} which runs as many variations as there are processors. */
+  int PROCESSORS = 0;
+
+  /**
+   * @return The maximum number of variations to run at once, or {@link #PROCESSORS}.
+   */
+  int parallelism() default PROCESSORS;
+
+  /**
+   * @return Whether the tests of one variation may also run at once. Each test runs on its own
+   * instance, so this is safe unless tests share static state.
+   */
+  boolean methods() default false;
+
+  /**
+   * @return Whether to run each test on its own virtual thread, for tests which mostly wait on I/O
+   * or timers. At most {@link #parallelism()} run at once, so set it to how many tests may usefully
+   * wait together. Implies {@link #methods()}. Before Java 21, platform threads are used instead.
+   */
+  boolean virtualThreads() default false;
+
+  /**
+   * @return Whether to run on one work-stealing pool shared by every class in the JVM, with a
+   * thread per processor, rather than on a pool of this class's own. Classes which run at once then
+   * share the processors, and {@link #parallelism()} is ignored. Ignored with
+   * {@link #virtualThreads()}.
+   */
+  boolean shared() default false;
+
+  /**
+   * @return Whether to adjust how many variations run at once while they run, up to
+   * {@link #parallelism()}. It starts at the number of processors, climbs while throughput
+   * improves, and backs off when the heap is nearly full. With {@link #PROCESSORS}, it may climb to
+   * four times the number of processors. The limit settled on is logged at {@code FINE}, or at
+   * {@code INFO} with the {@code burst.report} system property.
+   */
+  boolean adaptive() default false;
+}
@@ -0,0 +1,39 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class to run a reproducible random sample of at most {@link #max()} of its
+ * variations rather than all of them. The budget is shared between the test methods in proportion
+ * to their number of variations, and every method runs at least once when the budget allows it.
+ * Values marked with {@link Weight} are picked more often.
+ * <p>
+ * The seed is included in the name of the suite. To reproduce a run, set it with {@link #seed()} or
+ * the {@code burst.seed} system property.
+ * <pre>
+ *   {@literal @}RunWith(BurstJUnit4.class)
+ *   {@literal @}Sample(max = 500)
+ *   public class MyTests {
+ *     …
+ *   }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Sample {
+  /** The value of {@link #seed()} which picks a new seed for every run. */
+  long RANDOM_SEED = Long.MIN_VALUE;
+
+  /**
+   * @return The maximum number of variations to run for the whole class.
+   */
+  int max();
+
+  /**
+   * @return The seed of the random sample, or {@link #RANDOM_SEED} to pick a new one every run.
+   */
+  long seed() default RANDOM_SEED;
+}
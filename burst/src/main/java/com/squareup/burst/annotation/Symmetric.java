@@ -0,0 +1,31 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks fields or parameters of the same enum type as interchangeable, so that the order of their
+ * values does not matter. Rather than every permutation, only one ordering of each combination of
+ * values is run: the one in which the values are in declared order.
+ * <p>
+ * The following runs {@code testExchange} 6 times for three currencies rather than 9:
+ * <pre>
+ *   {@literal @}Test
+ *   public void testExchange({@literal @}Symmetric Currency a, {@literal @}Symmetric Currency b) {
+ *     assertEquals(rate(a, b), 1 / rate(b, a));
+ *   }
+ * </pre>
+ * Every symmetric field or parameter of a type is interchangeable with every other of that type.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.PARAMETER })
+public @interface Symmetric {
+
+  /**
+   * @return Whether interchangeable fields or parameters may take the same value. If any of them
+   * disallows it, all values must differ: the example above would then run 3 times.
+   */
+  boolean repeat() default true;
+}
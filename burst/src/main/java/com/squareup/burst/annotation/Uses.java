@@ -0,0 +1,39 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares resources that tests need, such as a fixed port or an embedded server, and how many
+ * tests may use each of them at once. When tests run concurrently, a test waits until every
+ * resource it uses has room for it, while tests which use none of them run freely.
+ * <p>
+ * A test uses the resources declared on its class, on its method, and on the enum constants of its
+ * variation. The following runs at most one test against the embedded server at a time, and at
+ * most four against the database:
+ * <pre>
+ *   enum Backend {
+ *     {@literal @}Uses("embedded-server") EMBEDDED,
+ *     {@literal @}Uses(value = "database", capacity = 4) DATABASE,
+ *     IN_MEMORY
+ *   }
+ * </pre>
+ * Resources are shared by every test class in the JVM, so each declaration of a resource must have
+ * the same capacity.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.FIELD })
+public @interface Uses {
+
+  /**
+   * @return The names of the resources used.
+   */
+  String[] value();
+
+  /**
+   * @return How many tests may use each of these resources at once.
+   */
+  int capacity() default 1;
+}
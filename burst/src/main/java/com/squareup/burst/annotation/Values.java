@@ -0,0 +1,33 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits a field or parameter to some of the constants of its enum. Other constants are never
+ * exploded, so they do not multiply the number of variations.
+ * <p>
+ * The following runs {@code testPayment} only for cards and cash:
+ * <pre>
+ *   {@literal @}Test
+ *   public void testPayment({@literal @}Values(include = { "CARD", "CASH" }) Payment payment) {
+ *     …
+ *   }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.PARAMETER })
+public @interface Values {
+
+  /**
+   * @return The names of the only constants to use. If empty, every constant is used.
+   */
+  String[] include() default { };
+
+  /**
+   * @return The names of constants not to use.
+   */
+  String[] exclude() default { };
+}
@@ -0,0 +1,28 @@
+package com.squareup.burst.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an enum constant as more (or less) likely to be picked when variations are sampled with
+ * {@link Sample}. Unannotated constants have a weight of 1.
+ * <pre>
+ *   public enum Currency {
+ *     {@literal @}Weight(10) USD,
+ *     {@literal @}Weight(5) EUR,
+ *     JPY,
+ *     CHF
+ *   }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Weight {
+
+  /**
+   * @return The relative likelihood of picking this constant. Must be positive.
+   */
+  double value();
+}
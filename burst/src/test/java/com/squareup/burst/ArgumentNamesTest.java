@@ -0,0 +1,34 @@
+package com.squareup.burst;
+
+import java.lang.annotation.Annotation;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ArgumentNamesTest {
+  enum First { APPLE, BEARD, COUCH }
+  enum Second { DINGO, EAGLE }
+
+  @Test public void noArguments() {
+    ArgumentNames names = new ArgumentNames(new Class<?>[0], new Annotation[0][]);
+    assertThat(names.name("test", new Enum<?>[0])).isEqualTo("test");
+  }
+
+  @Test public void matchesFriendlyName() {
+    Annotation[][] annotations = {
+        { TestUtil.createFake() },
+        { TestUtil.createFake(), TestUtil.createName("Bird") }
+    };
+    ArgumentNames names =
+        new ArgumentNames(new Class<?>[] { First.class, Second.class }, annotations);
+    for (First first : First.values()) {
+      for (Second second : Second.values()) {
+        Enum<?>[] arguments = { first, second };
+        assertThat(names.name("test", arguments))
+            .isEqualTo("test[" + Burst.friendlyName(arguments, annotations) + ']');
+      }
+    }
+    assertThat(names.name("test", new Enum<?>[] { First.COUCH, Second.DINGO }))
+        .isEqualTo("test[COUCH, Bird=DINGO]");
+  }
+}
@@ -1,5 +1,8 @@
 package com.squareup.burst;
 
+import com.squareup.burst.annotation.Constraint;
+import com.squareup.burst.annotation.Symmetric;
+import com.squareup.burst.annotation.Values;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -22,9 +25,27 @@ public class BurstTest {
     public Three(First first, Second second, Third third) {}
   }
 
+  public static class Constrained {
+    public Constrained(First first, Second second) {}
+
+    @Constraint static boolean noEagleApples(First first, Second second) {
+      return first != First.APPLE || second != Second.EAGLE;
+    }
+
+    @Constraint static boolean onlyFrankBeards(First first, Third third) {
+      return first != First.BEARD || third == Third.FRANK;
+    }
+
+    public void test(First first, Third third) {}
+  }
+
   public static class Bad {
     public Bad(Object o) {}
   }
+  public static class Subset {
+    public Subset(@Values(include = { "COUCH", "APPLE" }) First first,
+        @Values(exclude = "GREAT") Third third) {}
+  }
 
   @Rule public final ExpectedException thrown = ExpectedException.none();
 
@@ -151,6 +172,120 @@ public class BurstTest {
     );
   }
 
+  @Test public void constructorParameterValues() {
+    TestConstructor constructor = new TestConstructor(Subset.class.getConstructors()[0]);
+    Object[][] objects = Burst.explodeArguments(constructor);
+    assertThat(objects).containsExactly(
+        new Object[] { First.APPLE, Third.FRANK },
+        new Object[] { First.APPLE, Third.HEAVY },
+        new Object[] { First.APPLE, Third.ITALY },
+        new Object[] { First.COUCH, Third.FRANK },
+        new Object[] { First.COUCH, Third.HEAVY },
+        new Object[] { First.COUCH, Third.ITALY }
+    );
+  }
+
+  @Test public void constructorConstraints() {
+    TestConstructor constructor = new TestConstructor(Constrained.class.getConstructors()[0]);
+    Object[][] objects = Burst.explodeArguments(constructor);
+    // onlyFrankBeards reads Third, which only the test method has, so it doesn't apply.
+    assertThat(objects).containsExactly(
+        new Object[] { First.APPLE, Second.DINGO },
+        new Object[] { First.BEARD, Second.DINGO },
+        new Object[] { First.BEARD, Second.EAGLE },
+        new Object[] { First.COUCH, Second.DINGO },
+        new Object[] { First.COUCH, Second.EAGLE }
+    );
+  }
+
+  @Test public void methodConstraints() throws NoSuchMethodException {
+    Method method = Constrained.class.getMethod("test", First.class, Third.class);
+    Object[][] objects = Burst.explodeArguments(method);
+    assertThat(objects).hasSize(3 * 4 - 3);
+    for (Object[] arguments : objects) {
+      assertThat(arguments[0] != First.BEARD || arguments[1] == Third.FRANK).isTrue();
+    }
+  }
+
+  @Test public void methodParameterValues() throws NoSuchMethodException {
+    class Example {
+      public void example(@Values(include = { "BEARD", "COUCH" }, exclude = "BEARD") First first,
+          Second second) {}
+    }
+    Method method = Example.class.getMethod("example", First.class, Second.class);
+
+    Object[][] objects = Burst.explodeArguments(method);
+    assertThat(objects).containsExactly(
+        new Object[] { First.COUCH, Second.DINGO },
+        new Object[] { First.COUCH, Second.EAGLE }
+    );
+  }
+
+  @Test public void unknownValueName() throws NoSuchMethodException {
+    class Example {
+      public void example(@Values(exclude = "DOG") First first) {}
+    }
+    Method method = Example.class.getMethod("example", First.class);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage(Example.class.getName()
+        + ".example method parameter #1 has no value named DOG. (" + First.class.getName() + ')');
+
+    Burst.explodeArguments(method);
+  }
+
+  @Test public void everyValueExcluded() throws NoSuchMethodException {
+    class Example {
+      public void example(@Values(exclude = { "DINGO", "EAGLE" }) Second second) {}
+    }
+    Method method = Example.class.getMethod("example", Second.class);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage(Example.class.getName()
+        + ".example method parameter #1 excludes every value. (" + Second.class.getName() + ')');
+
+    Burst.explodeArguments(method);
+  }
+
+  @Test public void symmetricParameters() throws NoSuchMethodException {
+    class Example {
+      public void example(@Symmetric First a, Second second, @Symmetric First b) {}
+    }
+    Method method = Example.class.getMethod("example", First.class, Second.class, First.class);
+
+    Object[][] objects = Burst.explodeArguments(method);
+    assertThat(objects).containsExactly(
+        new Object[] { First.APPLE, Second.DINGO, First.APPLE },
+        new Object[] { First.APPLE, Second.DINGO, First.BEARD },
+        new Object[] { First.APPLE, Second.DINGO, First.COUCH },
+        new Object[] { First.APPLE, Second.EAGLE, First.APPLE },
+        new Object[] { First.APPLE, Second.EAGLE, First.BEARD },
+        new Object[] { First.APPLE, Second.EAGLE, First.COUCH },
+        new Object[] { First.BEARD, Second.DINGO, First.BEARD },
+        new Object[] { First.BEARD, Second.DINGO, First.COUCH },
+        new Object[] { First.BEARD, Second.EAGLE, First.BEARD },
+        new Object[] { First.BEARD, Second.EAGLE, First.COUCH },
+        new Object[] { First.COUCH, Second.DINGO, First.COUCH },
+        new Object[] { First.COUCH, Second.EAGLE, First.COUCH }
+    );
+  }
+
+  @Test public void symmetricParametersWithoutRepetition() throws NoSuchMethodException {
+    class Example {
+      public void example(@Symmetric Third a, @Symmetric(repeat = false) Third b,
+          @Symmetric Third c) {}
+    }
+    Method method = Example.class.getMethod("example", Third.class, Third.class, Third.class);
+
+    Object[][] objects = Burst.explodeArguments(method);
+    assertThat(objects).containsExactly(
+        new Object[] { Third.FRANK, Third.GREAT, Third.HEAVY },
+        new Object[] { Third.FRANK, Third.GREAT, Third.ITALY },
+        new Object[] { Third.FRANK, Third.HEAVY, Third.ITALY },
+        new Object[] { Third.GREAT, Third.HEAVY, Third.ITALY }
+    );
+  }
+
   @Test public void noArguments() {
     String actual = Burst.friendlyName(new Enum<?>[0]);
     assertThat(actual).isEqualTo("");
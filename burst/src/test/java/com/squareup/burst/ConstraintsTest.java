@@ -0,0 +1,154 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Constraint;
+import com.squareup.burst.annotation.Name;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("UnusedDeclaration")
+public class ConstraintsTest {
+  enum Payment { CARD, CASH, VOUCHER }
+  enum Network { ONLINE, OFFLINE_SYNC }
+  enum Currency { USD, EUR, JPY }
+
+  public static class Checkout {
+    public Checkout(Payment payment, Network network, Currency currency) {}
+
+    @Constraint static boolean cashIsNeverSynced(Payment payment, Network network) {
+      return payment != Payment.CASH || network != Network.OFFLINE_SYNC;
+    }
+
+    @Constraint static boolean vouchersAreDollars(Currency currency, Payment payment) {
+      return payment != Payment.VOUCHER || currency == Currency.USD;
+    }
+  }
+
+  public static class Transfer {
+    public Transfer(@Name("from") Currency from, @Name("to") Currency to) {}
+
+    @Constraint static boolean differentCurrencies(@Name("from") Currency from,
+        @Name("to") Currency to) {
+      return from != to;
+    }
+  }
+
+  public static class Ambiguous {
+    public Ambiguous(Currency from, Currency to) {}
+
+    @Constraint static boolean differentCurrencies(Currency currency) {
+      return true;
+    }
+  }
+
+  public static class Counting {
+    static final List<String> calls = new ArrayList<>();
+
+    public Counting(Payment payment, Network network, Currency currency) {}
+
+    @Constraint static boolean noCash(Payment payment) {
+      calls.add(payment.name());
+      return payment != Payment.CASH;
+    }
+  }
+
+  public static class NotStatic {
+    @Constraint boolean valid(Payment payment) {
+      return true;
+    }
+  }
+
+  public static class NotEnum {
+    @Constraint static boolean valid(String payment) {
+      return true;
+    }
+  }
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  @Test public void keepsOnlyValidVariations() {
+    VariationSpace space = space(Checkout.class);
+    long[] valid = filter(Checkout.class);
+    for (long index : valid) {
+      Enum<?>[] arguments = space.get(index);
+      assertThat(Checkout.cashIsNeverSynced((Payment) arguments[0], (Network) arguments[1]))
+          .isTrue();
+      assertThat(Checkout.vouchersAreDollars((Currency) arguments[2], (Payment) arguments[0]))
+          .isTrue();
+    }
+    // 18 variations, less 3 synced cash and 4 other voucher currencies.
+    assertThat(valid).hasSize(11);
+    for (int i = 1; i < valid.length; i++) {
+      assertThat(valid[i]).isGreaterThan(valid[i - 1]);
+    }
+  }
+
+  @Test public void stopsOnceMoreThanMax() {
+    long[] valid = filter(Checkout.class);
+    long[] first = Constraints.forClass(Checkout.class).filter(space(Checkout.class),
+        annotations(Checkout.class), 3);
+    assertThat(first).containsExactly(valid[0], valid[1], valid[2], valid[3]);
+  }
+
+  @Test public void matchesNamedDimensions() {
+    long[] valid = filter(Transfer.class);
+    VariationSpace space = space(Transfer.class);
+    assertThat(valid).hasSize(6);
+    for (long index : valid) {
+      Enum<?>[] arguments = space.get(index);
+      assertThat(arguments[0]).isNotEqualTo(arguments[1]);
+    }
+  }
+
+  @Test public void prunesRejectedPrefixes() {
+    Counting.calls.clear();
+    assertThat(filter(Counting.class)).hasSize(12);
+    // Checked once per payment rather than once per variation.
+    assertThat(Counting.calls).containsExactly("CARD", "CASH", "VOUCHER");
+  }
+
+  @Test public void noApplicableConstraint() {
+    assertThat(Constraints.forClass(Counting.class).filter(space(Transfer.class),
+        annotations(Transfer.class))).isNull();
+    assertThat(Constraints.forClass(Object.class).isEmpty()).isTrue();
+  }
+
+  @Test public void ambiguousParameter() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("differentCurrencies constraint parameter #1 matches several Currency "
+        + "values. Annotate it and them with @Name to tell them apart.");
+
+    filter(Ambiguous.class);
+  }
+
+  @Test public void constraintMustBeStatic() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Constraint method must be static: ");
+
+    Constraints.forClass(NotStatic.class);
+  }
+
+  @Test public void constraintParametersMustBeEnums() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("valid constraint parameter #1 type is not an enum. (java.lang.String)");
+
+    Constraints.forClass(NotEnum.class);
+  }
+
+  private static long[] filter(Class<?> cls) {
+    return Constraints.forClass(cls).filter(space(cls), annotations(cls));
+  }
+
+  private static VariationSpace space(Class<?> cls) {
+    return Burst.variations(new TestConstructor(cls.getConstructors()[0]));
+  }
+
+  private static Annotation[][] annotations(Class<?> cls) {
+    return new TestConstructor(cls.getConstructors()[0]).getArgumentAnnotations();
+  }
+}
@@ -0,0 +1,158 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Constraint;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("UnusedDeclaration")
+public class CoveringArrayTest {
+  enum First { APPLE, BEARD, COUCH }
+  enum Second { DINGO, EAGLE }
+  enum Third { FRANK, GREAT, HEAVY, ITALY }
+
+  public static class Three {
+    public Three(First first, Second second, Third third) {}
+  }
+
+  public static class Constrained {
+    public Constrained(First first, Second second, Third third) {}
+
+    @Constraint static boolean noEagleApples(First first, Second second) {
+      return first != First.APPLE || second != Second.EAGLE;
+    }
+
+    @Constraint static boolean onlyFrankCouches(First first, Third third) {
+      return first != First.COUCH || third == Third.FRANK;
+    }
+  }
+
+  @Test public void pairwise() {
+    assertCovers(new int[] { 3, 3, 3, 3 }, 2);
+    assertCovers(new int[] { 2, 5, 3, 4, 2, 3 }, 2);
+  }
+
+  @Test public void threeWise() {
+    assertCovers(new int[] { 3, 3, 3, 3, 3 }, 3);
+    assertCovers(new int[] { 2, 4, 3, 2, 3, 2 }, 3);
+  }
+
+  @Test public void oneWise() {
+    List<int[]> rows = assertCovers(new int[] { 3, 2, 4 }, 1);
+    assertThat(rows).hasSize(4);
+  }
+
+  @Test public void pairwiseIsMuchSmallerThanFullProduct() {
+    int[] radices = { 3, 3, 3, 3, 3, 3, 3, 3, 3, 3 };
+    List<int[]> rows = assertCovers(radices, 2);
+    assertThat(rows.size()).isLessThan(25); // Versus 59049.
+  }
+
+  @Test public void strengthAtLeastDimensionsIsFullProduct() {
+    assertThat(CoveringArray.generate(new int[] { 3, 2 }, 2)).hasSize(6);
+    assertThat(CoveringArray.generate(new int[] { 3, 2 }, 5)).hasSize(6);
+  }
+
+  @Test public void noDimensions() {
+    assertThat(CoveringArray.generate(new int[0], 2)).hasSize(1);
+  }
+
+  @Test public void emptyDimension() {
+    assertThat(CoveringArray.generate(new int[] { 3, 0, 2 }, 2)).isEmpty();
+  }
+
+  @Test public void spaceCovering() {
+    VariationSpace space =
+        Burst.variations(new TestConstructor(Three.class.getConstructors()[0]));
+    long[] indices = space.covering(2);
+    assertThat((long) indices.length).isLessThan(space.size());
+    for (int i = 1; i < indices.length; i++) {
+      assertThat(indices[i]).isGreaterThan(indices[i - 1]);
+    }
+
+    Set<String> pairs = new HashSet<>();
+    for (long index : indices) {
+      Enum<?>[] arguments = space.get(index);
+      pairs.add(arguments[0] + " " + arguments[1]);
+      pairs.add(arguments[0] + " " + arguments[2]);
+      pairs.add(arguments[1] + " " + arguments[2]);
+    }
+    assertThat(pairs).hasSize(3 * 2 + 3 * 4 + 2 * 4);
+  }
+
+  @Test public void constrainedCoveringCoversEveryValidPair() {
+    TestConstructor constructor = new TestConstructor(Constrained.class.getConstructors()[0]);
+    VariationSpace space = Burst.variations(constructor);
+    Constraints constraints = Constraints.forClass(Constrained.class);
+    long[] valid = constraints.filter(space, constructor.getArgumentAnnotations());
+    long[] indices =
+        space.covering(2, constraints.bind(space, constructor.getArgumentAnnotations()));
+
+    Set<String> validPairs = new HashSet<>();
+    for (long index : valid) {
+      validPairs.addAll(pairs(space.get(index)));
+    }
+    Set<String> coveredPairs = new HashSet<>();
+    for (int i = 0; i < indices.length; i++) {
+      assertThat(Arrays.binarySearch(valid, indices[i])).isGreaterThanOrEqualTo(0);
+      if (i > 0) {
+        assertThat(indices[i]).isGreaterThan(indices[i - 1]);
+      }
+      coveredPairs.addAll(pairs(space.get(indices[i])));
+    }
+    assertThat(coveredPairs).isEqualTo(validPairs);
+    assertThat(indices.length).isLessThan(valid.length);
+  }
+
+  private static List<String> pairs(Enum<?>[] arguments) {
+    return Arrays.asList(arguments[0] + " " + arguments[1], arguments[0] + " " + arguments[2],
+        arguments[1] + " " + arguments[2]);
+  }
+
+  /** Asserts that every {@code strength}-way combination of values occurs in some row. */
+  private static List<int[]> assertCovers(int[] radices, int strength) {
+    List<int[]> rows = CoveringArray.generate(radices, strength);
+    assertCovers(rows, radices, strength, new int[strength], 0, 0);
+    return rows;
+  }
+
+  private static void assertCovers(List<int[]> rows, int[] radices, int strength, int[] subset,
+      int position, int next) {
+    if (position == strength) {
+      assertCovers(rows, radices, subset, new int[strength], 0);
+      return;
+    }
+    for (int dimension = next; dimension < radices.length; dimension++) {
+      subset[position] = dimension;
+      assertCovers(rows, radices, strength, subset, position + 1, dimension + 1);
+    }
+  }
+
+  private static void assertCovers(List<int[]> rows, int[] radices, int[] subset, int[] values,
+      int position) {
+    if (position < subset.length) {
+      for (int value = 0; value < radices[subset[position]]; value++) {
+        values[position] = value;
+        assertCovers(rows, radices, subset, values, position + 1);
+      }
+      return;
+    }
+    for (int[] row : rows) {
+      boolean matches = true;
+      for (int i = 0; i < subset.length; i++) {
+        matches &= row[subset[i]] == values[i];
+      }
+      if (matches) {
+        return;
+      }
+    }
+    throw new AssertionError("Uncovered combination of dimensions "
+        + Arrays.toString(subset)
+        + ": "
+        + Arrays.toString(values));
+  }
+}
@@ -0,0 +1,40 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Burst;
+import com.squareup.burst.annotation.Name;
+import java.lang.reflect.Method;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetadataTest {
+  enum Soda { PEPSI, COKE }
+
+  public static class Base {
+    @Burst Soda base;
+  }
+
+  public static class Derived extends Base {
+    @Burst Soda derived;
+
+    public void test(@Name("drink") Soda soda) {}
+  }
+
+  @Test public void sharesValuesAcrossCalls() {
+    assertThat(Metadata.constructor(Derived.class)).isSameAs(Metadata.constructor(Derived.class));
+    assertThat(Metadata.enumConstants(Soda.class)).isSameAs(Metadata.enumConstants(Soda.class))
+        .containsExactly(Soda.PEPSI, Soda.COKE);
+  }
+
+  @Test public void burstableFieldsIncludeSuperclasses() throws NoSuchFieldException {
+    assertThat(Metadata.burstableFields(Derived.class)).containsExactly(
+        Derived.class.getDeclaredField("derived"), Base.class.getDeclaredField("base"));
+  }
+
+  @Test public void parameterAnnotationsMatchReflection() throws NoSuchMethodException {
+    Method method = Derived.class.getMethod("test", Soda.class);
+    assertThat(Metadata.parameterAnnotations(method)).isSameAs(
+        Metadata.parameterAnnotations(Derived.class.getMethod("test", Soda.class)));
+    assertThat(((Name) Metadata.parameterAnnotations(method)[0][0]).value()).isEqualTo("drink");
+  }
+}
@@ -0,0 +1,134 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Constraint;
+import com.squareup.burst.annotation.Name;
+import com.squareup.burst.annotation.Weight;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("UnusedDeclaration")
+public class SamplingTest {
+  enum Digit { D0, D1, D2, D3, D4, D5, D6, D7, D8, D9 }
+  enum Currency { @Weight(100) USD, EUR, JPY, CHF }
+  enum Broken { @Weight(0) NOTHING }
+
+  public static class Large {
+    public Large(Digit a, Digit b, Digit c, Digit d, Digit e, Digit f) {}
+  }
+
+  public static class Weighted {
+    public Weighted(Currency from, Currency to, Digit digit) {}
+  }
+
+  public static class Descending {
+    public Descending(@Name("a") Digit a, @Name("b") Digit b, Digit c, Digit d, Digit e,
+        Digit f) {}
+
+    @Constraint static boolean descending(@Name("a") Digit a, @Name("b") Digit b) {
+      return a.compareTo(b) > 0;
+    }
+  }
+
+  public static class DescendingPair {
+    public DescendingPair(@Name("a") Digit a, @Name("b") Digit b) {}
+
+    @Constraint static boolean descending(@Name("a") Digit a, @Name("b") Digit b) {
+      return a.compareTo(b) > 0;
+    }
+  }
+
+  public static class BadWeight {
+    public BadWeight(Broken broken) {}
+  }
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  @Test public void sampleIsDistinctAndSorted() {
+    long[] sample = space(Large.class).sample(500, 42);
+    assertThat(sample).hasSize(500);
+    for (int i = 1; i < sample.length; i++) {
+      assertThat(sample[i]).isGreaterThan(sample[i - 1]);
+    }
+  }
+
+  @Test public void sameSeedSameSample() {
+    VariationSpace space = space(Large.class);
+    assertThat(space.sample(100, 7)).isEqualTo(space.sample(100, 7));
+    assertThat(space.sample(100, 7)).isNotEqualTo(space.sample(100, 8));
+  }
+
+  @Test public void sampleLargerThanSpaceIsEverything() {
+    long[] sample = space(Weighted.class).sample(1000, 42);
+    assertThat(sample).hasSize(160);
+    assertThat(sample[0]).isEqualTo(0);
+    assertThat(sample[159]).isEqualTo(159);
+  }
+
+  @Test public void weightedValuesArePickedMoreOften() {
+    VariationSpace space = space(Weighted.class);
+    long[] sample = space.sample(40, 42);
+    assertThat(sample).hasSize(40);
+
+    int usd = 0;
+    for (long index : sample) {
+      if (space.get(index)[0] == Currency.USD) {
+        usd++;
+      }
+    }
+    // Uniform sampling would average 10.
+    assertThat(usd).isGreaterThan(20);
+  }
+
+  @Test public void sampleOfIndices() {
+    VariationSpace space = space(Weighted.class);
+    long[] covering = space.covering(2);
+    long[] sample = space.sample(covering, 5, 42);
+    assertThat(sample).hasSize(5);
+    assertThat(space.sample(covering, 5, 42)).isEqualTo(sample);
+    for (long index : sample) {
+      assertThat(covering).contains(index);
+    }
+  }
+
+  @Test public void constrainedSampleRejectsInvalidVariations() {
+    Constraints.Validator validator = validator(Descending.class);
+    VariationSpace space = validator.space;
+    long[] sample = space.sample(validator, 500, 42);
+    assertThat(sample).hasSize(500);
+    assertThat(space.sample(validator, 500, 42)).isEqualTo(sample);
+    for (int i = 0; i < sample.length; i++) {
+      assertThat(validator.accepts(sample[i])).isTrue();
+      if (i > 0) {
+        assertThat(sample[i]).isGreaterThan(sample[i - 1]);
+      }
+    }
+  }
+
+  @Test public void constrainedSampleOfSmallSpaceFindsEveryValidVariation() {
+    Constraints.Validator validator = validator(DescendingPair.class);
+    // The draws would cover the space, so it is filtered rather than sampled by rejection.
+    assertThat(validator.space.sample(validator, 50, 42))
+        .isEqualTo(validator.filter(Long.MAX_VALUE))
+        .hasSize(45);
+  }
+
+  @Test public void nonPositiveWeight() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Weight of " + Broken.class.getName() + ".NOTHING must be positive. (0.0)");
+
+    space(BadWeight.class).sample(0, 42);
+  }
+
+  private static Constraints.Validator validator(Class<?> cls) {
+    TestConstructor constructor = new TestConstructor(cls.getConstructors()[0]);
+    return Constraints.forClass(cls).bind(Burst.variations(constructor),
+        constructor.getArgumentAnnotations());
+  }
+
+  private static VariationSpace space(Class<?> cls) {
+    return Burst.variations(new TestConstructor(cls.getConstructors()[0]));
+  }
+}
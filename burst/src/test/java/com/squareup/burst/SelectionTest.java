@@ -0,0 +1,97 @@
+package com.squareup.burst;
+
+import com.squareup.burst.annotation.Name;
+import java.lang.annotation.Annotation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("UnusedDeclaration")
+public class SelectionTest {
+  enum Payment { CARD, CASH, VOUCHER }
+  enum Currency { USD, EUR, JPY }
+
+  public static class Checkout {
+    public Checkout(Payment payment, Currency currency) {}
+  }
+
+  public static class Transfer {
+    public Transfer(@Name("from") Currency from, @Name("to") Currency to) {}
+  }
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  @Test public void emptyExpressionSelectsEverything() {
+    assertThat(Selection.parse("")).isSameAs(Selection.ALL);
+    assertThat(Selection.parse("  ").isAll()).isTrue();
+    VariationSpace space = space(Checkout.class);
+    assertThat(Selection.ALL.apply(space, annotations(Checkout.class))).isSameAs(space);
+  }
+
+  @Test public void narrowsDimensionsByEnumName() {
+    VariationSpace space = apply("Payment=CASH|VOUCHER, Currency=*", Checkout.class);
+    assertThat(space.size()).isEqualTo(6);
+    assertThat(values(space, 0)).containsExactly(Payment.CASH, Payment.VOUCHER);
+    assertThat(values(space, 1)).containsExactly(Currency.USD, Currency.EUR, Currency.JPY);
+  }
+
+  @Test public void narrowsNamedDimensions() {
+    VariationSpace space = apply("to=EUR", Transfer.class);
+    assertThat(values(space, 0)).containsExactly(Currency.USD, Currency.EUR, Currency.JPY);
+    assertThat(values(space, 1)).containsExactly(Currency.EUR);
+
+    // The enum's name stands for every dimension whose name isn't selected.
+    space = apply("Currency=JPY", Transfer.class);
+    assertThat(space.size()).isEqualTo(1);
+  }
+
+  @Test public void unknownKeysAreIgnored() {
+    VariationSpace space = space(Checkout.class);
+    assertThat(Selection.parse("Snack=CHIPS").apply(space, annotations(Checkout.class)))
+        .isSameAs(space);
+  }
+
+  @Test public void unknownValue() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Selection Payment has no value named CHEQUE. "
+        + "(com.squareup.burst.SelectionTest$Payment)");
+
+    apply("Payment=CHEQUE", Checkout.class);
+  }
+
+  @Test public void termWithoutValues() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Selection term must be key=values: \"Payment\". (Payment,Currency=*)");
+
+    Selection.parse("Payment,Currency=*");
+  }
+
+  @Test public void repeatedKey() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Selection has several terms for Payment. (Payment=CASH,Payment=CARD)");
+
+    Selection.parse("Payment=CASH,Payment=CARD");
+  }
+
+  private static VariationSpace apply(String expression, Class<?> cls) {
+    return Selection.parse(expression).apply(space(cls), annotations(cls));
+  }
+
+  private static Enum<?>[] values(VariationSpace space, int dimension) {
+    Enum<?>[] values = new Enum<?>[space.valueCount(dimension)];
+    for (int v = 0; v < values.length; v++) {
+      values[v] = space.value(dimension, v);
+    }
+    return values;
+  }
+
+  private static VariationSpace space(Class<?> cls) {
+    return Burst.variations(new TestConstructor(cls.getConstructors()[0]));
+  }
+
+  private static Annotation[][] annotations(Class<?> cls) {
+    return new TestConstructor(cls.getConstructors()[0]).getArgumentAnnotations();
+  }
+}
@@ -0,0 +1,88 @@
+package com.squareup.burst;
+
+import java.lang.reflect.InvocationTargetException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestConstructorTest {
+  enum First { ONE, TWO }
+  enum Second { THREE, FOUR }
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  public static class ConstructorAndFields {
+    final First first;
+    Second second;
+    First third;
+
+    public ConstructorAndFields(First first) {
+      this.first = first;
+    }
+  }
+
+  public static class Throwing {
+    public Throwing(First first) {
+      throw new IllegalStateException("thrown " + first);
+    }
+  }
+
+  public static class Failing {
+    public Failing(First first) {
+      throw new AssertionError("failed " + first);
+    }
+  }
+
+  @Test public void passesConstructorArgumentsThenSetsFields() throws Exception {
+    TestConstructor ctor = constructorAndFields();
+    ConstructorAndFields instance = (ConstructorAndFields) ctor.newInstance(
+        new Object[] { First.TWO, Second.FOUR, First.ONE });
+    assertThat(instance.first).isSameAs(First.TWO);
+    assertThat(instance.second).isSameAs(Second.FOUR);
+    assertThat(instance.third).isSameAs(First.ONE);
+  }
+
+  @Test public void wrongArgumentCount() throws Exception {
+    TestConstructor ctor = constructorAndFields();
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Constructor takes 3 values, only 1 passed");
+
+    ctor.newInstance(new Object[] { First.ONE });
+  }
+
+  @Test public void constructorExceptionIsWrapped() throws Exception {
+    TestConstructor ctor = new TestConstructor(Throwing.class.getConstructors()[0]);
+    try {
+      ctor.newInstance(new Object[] { First.ONE });
+      throw new AssertionError();
+    } catch (InvocationTargetException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("thrown ONE");
+    }
+  }
+
+  @Test public void constructorErrorIsNotWrapped() throws Exception {
+    TestConstructor ctor = new TestConstructor(Failing.class.getConstructors()[0]);
+
+    thrown.expect(AssertionError.class);
+    thrown.expectMessage("failed ONE");
+
+    ctor.newInstance(new Object[] { First.ONE });
+  }
+
+  @Test public void wrongArgumentTypeIsNotWrapped() throws Exception {
+    TestConstructor ctor = constructorAndFields();
+
+    thrown.expect(ClassCastException.class);
+
+    ctor.newInstance(new Object[] { Second.THREE, Second.FOUR, First.ONE });
+  }
+
+  private static TestConstructor constructorAndFields() throws NoSuchFieldException {
+    Class<?> cls = ConstructorAndFields.class;
+    return new TestConstructor(cls.getConstructors()[0], cls.getDeclaredField("second"),
+        cls.getDeclaredField("third"));
+  }
+}
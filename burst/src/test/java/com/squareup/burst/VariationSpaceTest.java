@@ -0,0 +1,162 @@
+package com.squareup.burst;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("UnusedDeclaration")
+public class VariationSpaceTest {
+  enum First { APPLE, BEARD, COUCH }
+  enum Second { DINGO, EAGLE }
+  enum Third { FRANK, GREAT, HEAVY, ITALY }
+
+  public static class Three {
+    public Three(First first, Second second, Third third) {}
+  }
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  @Test public void noDimensions() throws NoSuchMethodException {
+    class Example {
+      public void example() {}
+    }
+    VariationSpace space = Burst.variations(Example.class.getMethod("example"));
+    assertThat(space.dimensions()).isEqualTo(0);
+    assertThat(space.size()).isEqualTo(1);
+    assertThat(space.get(0)).isEmpty();
+  }
+
+  @Test public void sizeIsProductOfDimensions() {
+    VariationSpace space = threeSpace();
+    assertThat(space.dimensions()).isEqualTo(3);
+    assertThat(space.size()).isEqualTo(24);
+    assertThat(space.valueCount(0)).isEqualTo(3);
+    assertThat(space.valueCount(1)).isEqualTo(2);
+    assertThat(space.valueCount(2)).isEqualTo(4);
+    assertThat(space.value(2, 1)).isEqualTo(Third.GREAT);
+  }
+
+  @Test public void getMatchesExplodedOrder() {
+    VariationSpace space = threeSpace();
+    Enum<?>[][] exploded =
+        Burst.explodeArguments(new TestConstructor(Three.class.getConstructors()[0]));
+    for (int i = 0; i < space.size(); i++) {
+      assertThat(space.get(i)).isEqualTo(exploded[i]);
+    }
+  }
+
+  @Test public void getDecodesMixedRadix() {
+    VariationSpace space = threeSpace();
+    assertThat(space.get(0)).containsExactly(First.APPLE, Second.DINGO, Third.FRANK);
+    assertThat(space.get(13)).containsExactly(First.BEARD, Second.EAGLE, Third.GREAT);
+    assertThat(space.get(23)).containsExactly(First.COUCH, Second.EAGLE, Third.ITALY);
+  }
+
+  @Test public void indexOfInvertsGet() {
+    VariationSpace space = threeSpace();
+    for (int i = 0; i < space.size(); i++) {
+      assertThat(space.indexOf(space.get(i))).isEqualTo(i);
+    }
+  }
+
+  @Test public void indexOfWrongValue() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Argument #2 is not a value of this space. (FRANK)");
+
+    threeSpace().indexOf(new Enum<?>[] { First.APPLE, Third.FRANK, Third.FRANK });
+  }
+
+  @Test public void getOutOfBounds() {
+    thrown.expect(IndexOutOfBoundsException.class);
+    thrown.expectMessage("index 24 not in [0, 24)");
+
+    threeSpace().get(24);
+  }
+
+  @Test public void methodSpace() throws NoSuchMethodException {
+    class Example {
+      public void example(Second second, First first) {}
+    }
+    Method method = Example.class.getMethod("example", Second.class, First.class);
+
+    VariationSpace space = Burst.variations(method);
+    assertThat(space.size()).isEqualTo(6);
+    assertThat(space.get(4)).containsExactly(Second.EAGLE, First.BEARD);
+  }
+
+  @Test public void grayCodeChangesOneDimensionAtATime() {
+    VariationSpace space = threeSpace();
+    Set<Long> seen = new HashSet<>();
+    int[] previous = null;
+    for (long rank = 0; rank < space.size(); rank++) {
+      long index = space.grayIndex(rank);
+      assertThat(seen.add(index)).isTrue();
+      assertThat(space.grayRank(index)).isEqualTo(rank);
+
+      int[] digits = space.digits(index);
+      if (previous != null) {
+        int changed = 0;
+        for (int i = 0; i < digits.length; i++) {
+          if (digits[i] != previous[i]) {
+            assertThat(Math.abs(digits[i] - previous[i])).isEqualTo(1);
+            changed++;
+          }
+        }
+        assertThat(changed).isEqualTo(1);
+      }
+      previous = digits;
+    }
+  }
+
+  @Test public void grayCodeOrder() {
+    VariationSpace space = threeSpace();
+    assertThat(space.get(space.grayIndex(0)))
+        .containsExactly(First.APPLE, Second.DINGO, Third.FRANK);
+    assertThat(space.get(space.grayIndex(3)))
+        .containsExactly(First.APPLE, Second.DINGO, Third.ITALY);
+    assertThat(space.get(space.grayIndex(4)))
+        .containsExactly(First.APPLE, Second.EAGLE, Third.ITALY);
+    assertThat(space.get(space.grayIndex(8)))
+        .containsExactly(First.BEARD, Second.EAGLE, Third.FRANK);
+    assertThat(space.get(space.grayIndex(23)))
+        .containsExactly(First.COUCH, Second.EAGLE, Third.FRANK);
+  }
+
+  @Test public void describesDimensions() {
+    assertThat(threeSpace().toString()).isEqualTo("First (3) x Second (2) x Third (4) = 24");
+  }
+
+  @Test public void sizeBeyondIntegerRange() {
+    VariationSpace space = threeSpace();
+    for (int i = 0; i < 3; i++) {
+      space = space.product(space);
+    }
+    assertThat(space.size()).isEqualTo(110075314176L); // 24^8
+    assertThat(space.get(space.size() - 1)).containsExactly(
+        First.COUCH, Second.EAGLE, Third.ITALY, First.COUCH, Second.EAGLE, Third.ITALY,
+        First.COUCH, Second.EAGLE, Third.ITALY, First.COUCH, Second.EAGLE, Third.ITALY,
+        First.COUCH, Second.EAGLE, Third.ITALY, First.COUCH, Second.EAGLE, Third.ITALY,
+        First.COUCH, Second.EAGLE, Third.ITALY, First.COUCH, Second.EAGLE, Third.ITALY);
+  }
+
+  @Test public void sizeBeyondLongRange() {
+    VariationSpace space = threeSpace();
+    for (int i = 0; i < 3; i++) {
+      space = space.product(space);
+    }
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Too many variations to count.");
+
+    space.product(space); // 24^16
+  }
+
+  private static VariationSpace threeSpace() {
+    return Burst.variations(new TestConstructor(Three.class.getConstructors()[0]));
+  }
+}
@@ -0,0 +1,197 @@
+package com.squareup.burst;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("UnusedDeclaration")
+public class VariationSpliteratorTest {
+  enum First { APPLE, BEARD, COUCH }
+  enum Second { DINGO, EAGLE }
+  enum Digit { D0, D1, D2, D3, D4, D5, D6, D7, D8, D9 }
+
+  public static class Two {
+    public Two(First first, Second second) {}
+  }
+
+  public static class Large {
+    public Large(Digit a, Digit b, Digit c, Digit d, Digit e, Digit f) {}
+  }
+
+  @Test public void traversesInIndexOrder() {
+    VariationSpace space = space(Two.class);
+    final List<Enum<?>[]> seen = new ArrayList<>();
+    space.spliterator().forEachRemaining(new VariationSpliterator.Action() {
+      @Override public void accept(Enum<?>[] arguments) {
+        seen.add(arguments);
+      }
+    });
+    assertThat(seen).containsExactly(space.toArray());
+  }
+
+  @Test public void tryAdvance() {
+    VariationSpliterator spliterator = space(Two.class).spliterator();
+    final List<Enum<?>[]> seen = new ArrayList<>();
+    VariationSpliterator.Action action = new VariationSpliterator.Action() {
+      @Override public void accept(Enum<?>[] arguments) {
+        seen.add(arguments);
+      }
+    };
+    assertThat(spliterator.tryAdvance(action)).isTrue();
+    assertThat(spliterator.estimateSize()).isEqualTo(5);
+    spliterator.forEachRemaining(action);
+    assertThat(spliterator.tryAdvance(action)).isFalse();
+    assertThat(seen).hasSize(6);
+  }
+
+  @Test public void splitsEvenly() {
+    VariationSpliterator suffix = space(Two.class).spliterator();
+    VariationSpliterator prefix = suffix.trySplit();
+    assertThat(prefix.estimateSize()).isEqualTo(3);
+    assertThat(suffix.estimateSize()).isEqualTo(3);
+
+    final List<Enum<?>[]> seen = new ArrayList<>();
+    VariationSpliterator.Action action = new VariationSpliterator.Action() {
+      @Override public void accept(Enum<?>[] arguments) {
+        seen.add(arguments);
+      }
+    };
+    prefix.forEachRemaining(action);
+    suffix.forEachRemaining(action);
+    assertThat(seen).containsExactly(space(Two.class).toArray());
+  }
+
+  @Test public void singleVariationDoesNotSplit() throws NoSuchMethodException {
+    class Example {
+      public void example() {}
+    }
+    VariationSpliterator spliterator =
+        Burst.variations(Example.class.getMethod("example")).spliterator();
+    assertThat(spliterator.trySplit()).isNull();
+    assertThat(spliterator.estimateSize()).isEqualTo(1);
+  }
+
+  @Test public void parallelMatchesSequential() {
+    VariationSpace space = space(Large.class);
+    assertThat(space.size()).isEqualTo(1000000);
+
+    Checksum sequential = new Checksum();
+    space.spliterator().forEachRemaining(sequential);
+
+    ForkJoinPool pool = new ForkJoinPool();
+    try {
+      Checksum parallel = pool.invoke(new ChecksumTask(space.spliterator()));
+      assertThat(parallel.count).isEqualTo(sequential.count).isEqualTo(space.size());
+      assertThat(parallel.sum).isEqualTo(sequential.sum);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test public void parallelVisitsEveryVariationOnce() {
+    VariationSpace space = space(Large.class);
+    final AtomicIntegerArray visits = new AtomicIntegerArray((int) space.size());
+    List<Long> leaves = Collections.synchronizedList(new ArrayList<Long>());
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      pool.invoke(new VisitTask(space.spliterator(), leaves, new VariationSpliterator.Action() {
+        @Override public void accept(Enum<?>[] arguments) {
+          // The digits of a Large variation read as a decimal number are its index.
+          int index = 0;
+          for (Enum<?> argument : arguments) {
+            index = index * 10 + argument.ordinal();
+          }
+          visits.incrementAndGet(index);
+        }
+      }));
+    } finally {
+      pool.shutdown();
+    }
+
+    for (int i = 0; i < visits.length(); i++) {
+      if (visits.get(i) != 1) {
+        fail("Variation " + i + " was visited " + visits.get(i) + " times");
+      }
+    }
+    // Halving a range of a million down to at most 10000 leaves 128 leaves which differ by one.
+    assertThat(leaves).hasSize(128);
+    assertThat(Collections.max(leaves) - Collections.min(leaves)).isLessThanOrEqualTo(1);
+  }
+
+  private static VariationSpace space(Class<?> cls) {
+    return Burst.variations(new TestConstructor(cls.getConstructors()[0]));
+  }
+
+  /** Sums every variation's digits read as a decimal number, which sums each index once. */
+  static final class Checksum implements VariationSpliterator.Action {
+    long count;
+    long sum;
+
+    @Override public void accept(Enum<?>[] arguments) {
+      long value = 0;
+      for (Enum<?> argument : arguments) {
+        value = value * 10 + argument.ordinal();
+      }
+      count++;
+      sum += value;
+    }
+  }
+
+  static final class ChecksumTask extends RecursiveTask<Checksum> {
+    private static final long THRESHOLD = 10000;
+    private final VariationSpliterator spliterator;
+
+    ChecksumTask(VariationSpliterator spliterator) {
+      this.spliterator = spliterator;
+    }
+
+    @Override protected Checksum compute() {
+      if (spliterator.estimateSize() > THRESHOLD) {
+        VariationSpliterator prefix = spliterator.trySplit();
+        ChecksumTask left = new ChecksumTask(prefix);
+        left.fork();
+        Checksum right = compute();
+        Checksum result = left.join();
+        result.count += right.count;
+        result.sum += right.sum;
+        return result;
+      }
+      Checksum checksum = new Checksum();
+      spliterator.forEachRemaining(checksum);
+      return checksum;
+    }
+  }
+
+  /** Splits down to {@link ChecksumTask#THRESHOLD}, recording the size of every leaf. */
+  static final class VisitTask extends RecursiveAction {
+    private final VariationSpliterator spliterator;
+    private final List<Long> leaves;
+    private final VariationSpliterator.Action action;
+
+    VisitTask(VariationSpliterator spliterator, List<Long> leaves,
+        VariationSpliterator.Action action) {
+      this.spliterator = spliterator;
+      this.leaves = leaves;
+      this.action = action;
+    }
+
+    @Override protected void compute() {
+      if (spliterator.estimateSize() > ChecksumTask.THRESHOLD) {
+        VariationSpliterator prefix = spliterator.trySplit();
+        invokeAll(new VisitTask(prefix, leaves, action), new VisitTask(spliterator, leaves, action));
+        return;
+      }
+      leaves.add(spliterator.estimateSize());
+      spliterator.forEachRemaining(action);
+    }
+  }
+}